@@ -1,7 +1,11 @@
 package org.workswap.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.lang.NonNull;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
@@ -10,6 +14,7 @@ import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.workswap.core.services.components.LocalStompBroker;
 import org.workswap.core.services.security.websocket.AuthChannelInterceptor;
 import org.workswap.core.services.security.websocket.AuthHandshakeInterceptor;
 import org.springframework.security.messaging.context.SecurityContextChannelInterceptor;
@@ -34,11 +39,69 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .addInterceptors(authHandshakeInterceptor);
     }
 
+    // simple — брокер в памяти этого узла; relay — внешний STOMP-брокер (RabbitMQ), общий для всех узлов
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:/}")
+    private String relayVirtualHost;
+
+    // platform — стандартные пулы каналов; virtual — обработка STOMP-сообщений на виртуальных потоках
+    @Value("${websocket.executor:platform}")
+    private String executorMode;
+
+    // Сколько сообщений канала обрабатывается одновременно в режиме virtual; сверх лимита отправитель ждёт.
+    // Без него всплеск сообщений упирается в пул соединений БД тысячами ожидающих потоков
+    @Value("${websocket.virtual.concurrency-limit:200}")
+    private int virtualConcurrencyLimit;
+
     @Override
     public void configureMessageBroker(@NonNull MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
-        registry.enableSimpleBroker("/topic", "/queue"); // добавь /queue, если используешь @SendToUser
         registry.setUserDestinationPrefix("/user");
+
+        if (isVirtualExecutor()) {
+            // без пула потоков порядок внутри сессии не гарантирован — сохраняем его явно
+            registry.setPreservePublishOrder(true);
+            registry.setPreserveReceiveOrder(true);
+        }
+
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost)
+                    // сессия пользователя может быть на другом узле: неразрешённые user-адреса
+                    // и реестр пользователей рассылаются через брокер всем узлам
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            registry.enableSimpleBroker("/topic", "/queue"); // добавь /queue, если используешь @SendToUser
+        }
+    }
+
+    // Локальная замена RabbitMQ для проверки нескольких узлов на одной машине:
+    // один узел поднимает брокер, остальные подключаются к нему в режиме relay
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "websocket.broker.embedded", havingValue = "true")
+    public LocalStompBroker localStompBroker() {
+        return new LocalStompBroker(relayPort);
     }
 
     @Override
@@ -53,5 +116,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             authChannelInterceptor, // твой
             new SecurityContextChannelInterceptor() // важный interceptor!
         );
+        if (isVirtualExecutor()) {
+            // обработчики блокируются на JPA (sendMessage, markMessagesAsRead) — виртуальный поток на сообщение
+            registration.executor(virtualThreadExecutor("ws-inbound-"));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(@NonNull ChannelRegistration registration) {
+        if (isVirtualExecutor()) {
+            registration.executor(virtualThreadExecutor("ws-outbound-"));
+        }
+    }
+
+    private boolean isVirtualExecutor() {
+        return "virtual".equalsIgnoreCase(executorMode);
+    }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String prefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(virtualConcurrencyLimit);
+        return executor;
     }
 }
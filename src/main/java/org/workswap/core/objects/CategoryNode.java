@@ -0,0 +1,38 @@
+package org.workswap.core.objects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.workswap.datasource.central.model.listingModels.Category;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+// Узел снимка дерева категорий: копия полей категории без сущности JPA, поэтому его можно отдавать всем потокам
+@Getter
+public class CategoryNode {
+
+    private final Long id;
+    private final String name;
+    private final Long parentId;
+    private final boolean leaf;
+
+    @Getter(AccessLevel.NONE)
+    private final List<CategoryNode> children = new ArrayList<>(); // заполняется только при сборке снимка
+
+    CategoryNode(Category category) {
+        this.id = category.getId();
+        this.name = category.getName();
+        this.parentId = category.getParent() != null ? category.getParent().getId() : null;
+        this.leaf = category.isLeaf();
+    }
+
+    public List<CategoryNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    void addChild(CategoryNode child) {
+        children.add(child);
+    }
+}
@@ -0,0 +1,182 @@
+package org.workswap.core.objects;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.workswap.datasource.central.model.listingModels.Category;
+
+import lombok.Getter;
+
+/**
+ * Неизменяемый снимок дерева категорий.
+ * Категории лежат в порядке обхода в глубину (Euler tour), поэтому все потомки узла i —
+ * это непрерывный отрезок [i, subtreeEnd[i]) массива. Снимок хранит не сущности,
+ * а узлы {@link CategoryNode}: общий для всех потоков кэш не должен держать managed-объекты.
+ */
+public class CategoryTreeSnapshot {
+
+    @Getter
+    private final long version;
+
+    private final List<CategoryNode> order;
+    private final int[] subtreeEnd;
+    private final List<CategoryNode> roots;
+    private final Map<Long, Integer> indexById;
+
+    private CategoryTreeSnapshot(long version, List<CategoryNode> order, int[] subtreeEnd, List<CategoryNode> roots, Map<Long, Integer> indexById) {
+        this.version = version;
+        this.order = order;
+        this.subtreeEnd = subtreeEnd;
+        this.roots = roots;
+        this.indexById = indexById;
+    }
+
+    public static CategoryTreeSnapshot build(long version, List<Category> categories) {
+        Map<Long, List<CategoryNode>> childrenByParent = new HashMap<>();
+        List<CategoryNode> rootNodes = new ArrayList<>();
+
+        for (Category category : categories) {
+            CategoryNode node = new CategoryNode(category);
+            if (node.getParentId() == null) {
+                rootNodes.add(node);
+            } else {
+                childrenByParent.computeIfAbsent(node.getParentId(), k -> new ArrayList<>()).add(node);
+            }
+        }
+
+        Comparator<CategoryNode> byId = Comparator.comparing(CategoryNode::getId);
+        rootNodes.sort(byId);
+        childrenByParent.values().forEach(list -> list.sort(byId));
+
+        int size = categories.size();
+        List<CategoryNode> order = new ArrayList<>(size);
+        int[] subtreeEnd = new int[size];
+        Map<Long, Integer> indexById = new HashMap<>(size * 2);
+
+        // итеративный обход в глубину: Integer в стеке — выход из узла
+        Deque<Object> stack = new ArrayDeque<>();
+        for (int i = rootNodes.size() - 1; i >= 0; i--) {
+            stack.push(rootNodes.get(i));
+        }
+
+        while (!stack.isEmpty()) {
+            Object top = stack.pop();
+            if (top instanceof Integer exitIndex) {
+                subtreeEnd[exitIndex] = order.size();
+                continue;
+            }
+
+            CategoryNode node = (CategoryNode) top;
+            if (indexById.containsKey(node.getId())) {
+                continue; // защита от циклов в данных
+            }
+
+            int index = order.size();
+            order.add(node);
+            indexById.put(node.getId(), index);
+            stack.push(index);
+
+            List<CategoryNode> kids = childrenByParent.getOrDefault(node.getId(), Collections.emptyList());
+            kids.forEach(node::addChild);
+            for (int i = kids.size() - 1; i >= 0; i--) {
+                stack.push(kids.get(i));
+            }
+        }
+
+        return new CategoryTreeSnapshot(
+            version,
+            Collections.unmodifiableList(order),
+            subtreeEnd,
+            List.copyOf(rootNodes),
+            indexById);
+    }
+
+    public CategoryNode find(Long id) {
+        Integer index = id != null ? indexById.get(id) : null;
+        return index != null ? order.get(index) : null;
+    }
+
+    // Id самой категории и всех её потомков, без обращения к БД
+    public List<Long> descendantIds(Long id) {
+        Integer index = id != null ? indexById.get(id) : null;
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(subtreeEnd[index] - index);
+        for (int i = index; i < subtreeEnd[index]; i++) {
+            ids.add(order.get(i).getId());
+        }
+        return ids;
+    }
+
+    public List<CategoryNode> children(Long id) {
+        CategoryNode node = find(id);
+        return node != null ? node.getChildren() : Collections.emptyList();
+    }
+
+    public List<CategoryNode> roots() {
+        return roots;
+    }
+
+    // Старые методы API отдают сущности: каждому вызову — свои отсоединённые копии, снимок они не затрагивают
+    public List<Category> copyRoots() {
+        List<Category> copies = new ArrayList<>(roots.size());
+        for (CategoryNode root : roots) {
+            copies.add(copyWithChildren(root, null));
+        }
+        return copies;
+    }
+
+    // Сама категория и все её потомки в порядке обхода, у каждой копии заполнены дети
+    public List<Category> copySubtree(Long id) {
+        Integer index = id != null ? indexById.get(id) : null;
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        CategoryNode top = order.get(index);
+        CategoryNode topParent = find(top.getParentId());
+        Category parentCopy = topParent != null ? copy(topParent, null) : null;
+
+        List<Category> copies = new ArrayList<>(subtreeEnd[index] - index);
+        collect(top, parentCopy, copies);
+        return copies;
+    }
+
+    private Category copyWithChildren(CategoryNode node, Category parent) {
+        Category copy = copy(node, parent);
+        List<Category> children = new ArrayList<>(node.getChildren().size());
+        for (CategoryNode child : node.getChildren()) {
+            children.add(copyWithChildren(child, copy));
+        }
+        copy.setChildren(children);
+        return copy;
+    }
+
+    private Category collect(CategoryNode node, Category parent, List<Category> result) {
+        Category copy = copy(node, parent);
+        result.add(copy);
+        List<Category> children = new ArrayList<>(node.getChildren().size());
+        for (CategoryNode child : node.getChildren()) {
+            children.add(collect(child, copy, result));
+        }
+        copy.setChildren(children);
+        return copy;
+    }
+
+    private static Category copy(CategoryNode node, Category parent) {
+        Category copy = new Category(node.getName(), parent);
+        copy.setId(node.getId());
+        copy.setLeaf(node.isLeaf());
+        return copy;
+    }
+
+    public int size() {
+        return order.size();
+    }
+}
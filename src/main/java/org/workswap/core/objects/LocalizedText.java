@@ -0,0 +1,16 @@
+package org.workswap.core.objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Неизменяемый результат локализации: сущность при этом не трогаем
+@Getter
+@AllArgsConstructor
+public class LocalizedText {
+
+    public static final LocalizedText EMPTY = new LocalizedText(null, null, null);
+
+    private final String title;
+    private final String excerpt; // только у новостей
+    private final String description;
+}
@@ -0,0 +1,142 @@
+package org.workswap.core.objects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.Hibernate;
+import org.workswap.datasource.central.model.listingModels.Location;
+
+/**
+ * Неизменяемый справочник локаций: страны, города по странам и индексы по id и имени.
+ * Собирается одним запросом в отдельной транзакции и живёт до следующего сохранения локации.
+ * Кроме неизменяемых записей {@link Entry} хранит отсоединённые сущности этой загрузки —
+ * их отдают методы, возвращающие Location, без обращения к БД. Ни в какой сессии они не участвуют,
+ * ленивые коллекции у них не загружены. Имена, которых нет в БД, запоминаются до пересборки.
+ */
+public class LocationRegistry {
+
+    private static final int MAX_MISSES = 10_000;
+
+    // Поля локации, нужные справочнику и DTO; countryId — только у городов
+    public record Entry(Long id, String name, String fullName, boolean city, Long countryId) {}
+
+    private final Map<Long, Entry> byId;
+    private final Map<String, Entry> byName;
+    private final Map<Long, Location> entities;
+    private final Map<Long, List<Long>> cityIdsByCountry;
+    private final List<Long> countryIds;
+    private final Set<String> misses = ConcurrentHashMap.newKeySet();
+
+    private LocationRegistry(
+        Map<Long, Entry> byId,
+        Map<String, Entry> byName,
+        Map<Long, Location> entities,
+        Map<Long, List<Long>> cityIdsByCountry,
+        List<Long> countryIds
+    ) {
+        this.byId = byId;
+        this.byName = byName;
+        this.entities = entities;
+        this.cityIdsByCountry = cityIdsByCountry;
+        this.countryIds = countryIds;
+    }
+
+    // Вызывается внутри транзакции загрузки: страна города подгружается, пока сессия открыта
+    public static LocationRegistry build(List<Location> locations) {
+        Map<Long, Entry> byId = new HashMap<>(locations.size() * 2);
+        Map<String, Entry> byName = new HashMap<>(locations.size() * 2);
+        Map<Long, Location> entities = new HashMap<>(locations.size() * 2);
+        Map<Long, List<Long>> cities = new HashMap<>();
+        List<Long> countries = new ArrayList<>();
+
+        for (Location location : locations) {
+            Long countryId = null;
+            if (location.isCity() && location.getCountry() != null) {
+                Hibernate.initialize(location.getCountry());
+                countryId = location.getCountry().getId();
+            }
+            Entry entry = new Entry(location.getId(), location.getName(), location.getFullName(), location.isCity(), countryId);
+
+            byId.put(entry.id(), entry);
+            entities.put(entry.id(), location);
+            if (entry.name() != null) {
+                byName.putIfAbsent(entry.name(), entry);
+            }
+
+            if (entry.city()) {
+                if (countryId != null) {
+                    cities.computeIfAbsent(countryId, k -> new ArrayList<>()).add(entry.id());
+                }
+            } else {
+                countries.add(entry.id());
+            }
+        }
+
+        Collections.sort(countries);
+
+        Map<Long, List<Long>> cityIdsByCountry = new HashMap<>(cities.size() * 2);
+        cities.forEach((countryId, list) -> {
+            Collections.sort(list);
+            cityIdsByCountry.put(countryId, List.copyOf(list));
+        });
+
+        return new LocationRegistry(byId, byName, entities, cityIdsByCountry, List.copyOf(countries));
+    }
+
+    public Entry findById(Long id) {
+        return byId.get(id);
+    }
+
+    public Entry findByName(String name) {
+        return byName.get(name);
+    }
+
+    public Location getEntity(Long id) {
+        return id != null ? entities.get(id) : null;
+    }
+
+    // Сущности в порядке переданных id; каждому вызову — свой изменяемый список
+    public List<Location> getEntities(List<Long> ids) {
+        List<Location> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Location location = entities.get(id);
+            if (location != null) {
+                result.add(location);
+            }
+        }
+        return result;
+    }
+
+    public boolean isKnownMiss(String param) {
+        return misses.contains(param);
+    }
+
+    public void rememberMiss(String param) {
+        if (misses.size() >= MAX_MISSES) {
+            misses.clear(); // мусорные запросы не должны раздувать справочник
+        }
+        misses.add(param);
+    }
+
+    public List<Long> getCountryIds() {
+        return countryIds;
+    }
+
+    public List<Long> getCityIds(Long countryId) {
+        return cityIdsByCountry.getOrDefault(countryId, Collections.emptyList());
+    }
+
+    public Long getCountryId(Long cityId) {
+        Entry entry = byId.get(cityId);
+        return entry != null ? entry.countryId() : null;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+}
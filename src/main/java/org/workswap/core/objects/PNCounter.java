@@ -0,0 +1,84 @@
+package org.workswap.core.objects;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PN-счётчик (CRDT): у каждого узла свои монотонные суммы увеличений и уменьшений.
+ * Слияние — максимум по каждой сумме, значение — сумма увеличений минус сумма уменьшений.
+ * Порядок и повторы сообщений между узлами не влияют на результат.
+ * Узлы, от которых давно нет состояния, можно вычеркнуть — их соединения уже закрыты.
+ * Суммы узла живут в пределах его эпохи (момента запуска): перезапущенный узел с тем же id начинает
+ * с нуля в новой эпохе, и его состояние заменяет прежнее, а не сливается с ним по максимуму.
+ */
+public class PNCounter {
+
+    private final String selfNode;
+    private final long selfEpoch;
+    private final Map<String, NodeState> nodes = new ConcurrentHashMap<>();
+
+    public PNCounter(String selfNode, long selfEpoch) {
+        this.selfNode = selfNode;
+        this.selfEpoch = selfEpoch;
+        nodes.put(selfNode, new NodeState(selfEpoch, 0, 0, Long.MAX_VALUE));
+    }
+
+    public void increment() {
+        nodes.compute(selfNode, (node, s) -> new NodeState(s.epoch, s.p + 1, s.n, Long.MAX_VALUE));
+    }
+
+    public void decrement() {
+        nodes.compute(selfNode, (node, s) -> new NodeState(s.epoch, s.p, s.n + 1, Long.MAX_VALUE));
+    }
+
+    public void merge(String node, long epoch, long p, long n, long now) {
+        if (selfNode.equals(node)) {
+            return; // своё состояние знаем точнее всех
+        }
+        nodes.merge(node, new NodeState(epoch, p, n, now), (old, received) -> {
+            if (received.epoch > old.epoch) {
+                return received; // узел перезапустился — суммы прежней эпохи больше не действуют
+            }
+            if (received.epoch < old.epoch) {
+                return new NodeState(old.epoch, old.p, old.n, now); // запоздавшее сообщение прежней эпохи
+            }
+            return new NodeState(old.epoch, Math.max(old.p, received.p), Math.max(old.n, received.n), now);
+        });
+    }
+
+    public void expire(long seenBefore) {
+        nodes.entrySet().removeIf(e -> e.getValue().seenAt < seenBefore);
+    }
+
+    public long value() {
+        long value = 0;
+        for (NodeState s : nodes.values()) {
+            value += s.p - s.n;
+        }
+        return value;
+    }
+
+    public long localValue() {
+        NodeState s = nodes.get(selfNode);
+        return s.p - s.n;
+    }
+
+    public long getP() {
+        return nodes.get(selfNode).p;
+    }
+
+    public long getN() {
+        return nodes.get(selfNode).n;
+    }
+
+    public long getEpoch() {
+        return selfEpoch;
+    }
+
+    // Узел с наименьшим id среди живых — один на кластер, если состояние сошлось
+    public boolean isLowestNode() {
+        return nodes.keySet().stream().min(String::compareTo).map(selfNode::equals).orElse(true);
+    }
+
+    private record NodeState(long epoch, long p, long n, long seenAt) {}
+}
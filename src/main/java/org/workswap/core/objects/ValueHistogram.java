@@ -0,0 +1,113 @@
+package org.workswap.core.objects;
+
+import java.util.Arrays;
+
+/**
+ * Гистограмма неотрицательных целых значений для оценки квантилей (по схеме HDR).
+ * Значения до 128 считаются точно, дальше — в логарифмических корзинах по 64 на каждую степень двойки,
+ * так что относительная ошибка квантиля не больше 1/64. Гистограммы сливаются сложением счётчиков,
+ * а в строку сохраняются только непустые корзины.
+ */
+public class ValueHistogram {
+
+    private static final int EXACT_LIMIT = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+
+    private long[] counts = new long[EXACT_LIMIT];
+    private long total;
+
+    public void record(long value) {
+        int index = indexOf(Math.max(value, 0));
+        ensureCapacity(index);
+        counts[index]++;
+        total++;
+    }
+
+    public void merge(ValueHistogram other) {
+        ensureCapacity(other.counts.length - 1);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // q в [0, 1]; для пустой гистограммы — 0
+    public double quantile(double q) {
+        if (total == 0) {
+            return 0.0;
+        }
+
+        long rank = Math.max((long) Math.ceil(q * total), 1);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(counts.length - 1);
+    }
+
+    // "индекс:счётчик,индекс:счётчик" — только непустые корзины
+    public String encode() {
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                if (encoded.length() > 0) {
+                    encoded.append(',');
+                }
+                encoded.append(i).append(':').append(counts[i]);
+            }
+        }
+        return encoded.toString();
+    }
+
+    public static ValueHistogram decode(String encoded) {
+        ValueHistogram histogram = new ValueHistogram();
+        if (encoded == null || encoded.isEmpty()) {
+            return histogram;
+        }
+
+        for (String pair : encoded.split(",")) {
+            int colon = pair.indexOf(':');
+            int index = Integer.parseInt(pair.substring(0, colon));
+            long count = Long.parseLong(pair.substring(colon + 1));
+            histogram.ensureCapacity(index);
+            histogram.counts[index] += count;
+            histogram.total += count;
+        }
+        return histogram;
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, index + 1);
+        }
+    }
+
+    private static int indexOf(long value) {
+        if (value < EXACT_LIMIT) {
+            return (int) value;
+        }
+        // сдвиг, при котором в значении остаётся 7 значащих бит: мантисса в [64, 128)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift);
+        return EXACT_LIMIT + (shift - 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    // Середина корзины
+    private static double valueOf(int index) {
+        if (index < EXACT_LIMIT) {
+            return index;
+        }
+        int shift = (index - EXACT_LIMIT) / SUB_BUCKETS + 1;
+        long mantissa = (index - EXACT_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        long lower = mantissa << shift;
+        return lower + ((1L << shift) - 1) / 2.0;
+    }
+}
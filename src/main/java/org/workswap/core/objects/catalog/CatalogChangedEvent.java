@@ -0,0 +1,19 @@
+package org.workswap.core.objects.catalog;
+
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Объявление в каталоге изменилось: старые и новые категория/локация, затронутые сортировки
+// и признак того, что изменились только просмотры
+@Getter
+@AllArgsConstructor
+public class CatalogChangedEvent {
+
+    private final Long listingId;
+    private final Set<Long> categoryIds;
+    private final Set<Long> locationIds;
+    private final Set<CatalogSort> affectedSorts;
+    private final boolean viewsOnly;
+}
@@ -0,0 +1,58 @@
+package org.workswap.core.objects.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.workswap.datasource.central.model.Listing;
+
+import lombok.Getter;
+
+/**
+ * Позиция в каталоге для keyset-пагинации: значение поля сортировки и id последнего объявления страницы.
+ * Наружу отдаётся только как непрозрачный токен.
+ */
+@Getter
+public class CatalogCursor {
+
+    private static final String NULL_MARKER = "~";
+
+    private final CatalogSort sort;
+    private final Object value; // null — курсор уже в хвосте объявлений без значения
+    private final Long lastId;
+
+    public CatalogCursor(CatalogSort sort, Object value, Long lastId) {
+        this.sort = sort;
+        this.value = value;
+        this.lastId = lastId;
+    }
+
+    public static CatalogCursor after(CatalogSort sort, Listing listing) {
+        return new CatalogCursor(sort, sort.extract(listing), listing.getId());
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + (value != null ? value.toString() : NULL_MARKER) + "|" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CatalogCursor decode(String token, CatalogSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed catalog cursor");
+            }
+
+            CatalogSort sort = CatalogSort.valueOf(parts[0]);
+            if (sort != expectedSort) {
+                throw new IllegalArgumentException("Catalog cursor was issued for another sort: " + sort);
+            }
+
+            Object value = NULL_MARKER.equals(parts[1]) ? null : sort.parseValue(parts[1]);
+            return new CatalogCursor(sort, value, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid catalog cursor", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.workswap.core.objects.catalog;
+
+import java.util.List;
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CatalogFilter {
+
+    private final List<Long> categoryIds; // пустой список — без фильтра по категории
+    private final List<Long> locationIds; // пустой список — без фильтра по локации
+    private final List<String> languages;
+    private final String searchQuery;
+    private final boolean hasReviews;
+    private final Set<Long> matchedIds; // результат полнотекстового поиска; null — искать LIKE-ом в БД
+}
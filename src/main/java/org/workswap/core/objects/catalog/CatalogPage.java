@@ -0,0 +1,16 @@
+package org.workswap.core.objects.catalog;
+
+import java.util.List;
+
+import org.workswap.common.dto.listing.CatalogListingDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CatalogPage {
+
+    private final List<CatalogListingDTO> listings;
+    private final String nextCursor; // null, если страниц больше нет
+}
@@ -0,0 +1,65 @@
+package org.workswap.core.objects.catalog;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import org.workswap.datasource.central.model.Listing;
+
+import lombok.Getter;
+
+@Getter
+public enum CatalogSort {
+
+    PRICE("price", true, Listing::getPrice),
+    RATING("rating", false, Listing::getRating),
+    POPULARITY("views", false, Listing::getViews),
+    DATE("createdAt", false, Listing::getCreatedAt);
+
+    private final String field; // поле сущности Listing, по которому сортирует БД
+    private final boolean ascending;
+    private final Function<Listing, Object> extractor;
+
+    CatalogSort(String field, boolean ascending, Function<Listing, Object> extractor) {
+        this.field = field;
+        this.ascending = ascending;
+        this.extractor = extractor;
+    }
+
+    public static CatalogSort fromParam(String sortBy) {
+        if (sortBy == null) {
+            return DATE;
+        }
+        switch (sortBy) {
+            case "price":
+                return PRICE;
+            case "rating":
+                return RATING;
+            case "popularity":
+                return POPULARITY;
+            case "date":
+            default:
+                return DATE;
+        }
+    }
+
+    public Object extract(Listing listing) {
+        return extractor.apply(listing);
+    }
+
+    // Восстанавливаем значение из курсора в том типе, который ожидает JPQL-параметр
+    public Object parseValue(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        switch (this) {
+            case PRICE:
+            case RATING:
+                return Double.valueOf(raw);
+            case POPULARITY:
+                return Integer.valueOf(raw);
+            case DATE:
+            default:
+                return LocalDateTime.parse(raw);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.workswap.core.objects.chat;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Чаты удалены: кэши списков чатов и счётчики непрочитанных чистят их у всех участников после коммита
+@Getter
+@AllArgsConstructor
+public class ChatsDeletedEvent {
+
+    private final List<Long> chatIds;
+}
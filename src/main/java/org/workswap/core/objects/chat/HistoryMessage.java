@@ -0,0 +1,31 @@
+package org.workswap.core.objects.chat;
+
+import java.time.LocalDateTime;
+
+import org.workswap.datasource.central.model.chat.Message;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class HistoryMessage {
+
+    private final Long id;
+    private final Long senderId;
+    private final Long receiverId;
+    private final String text;
+    private final LocalDateTime sentAt;
+    private final boolean read;
+
+    public static HistoryMessage of(Message message) {
+        return new HistoryMessage(
+            message.getId(),
+            message.getSender() != null ? message.getSender().getId() : null,
+            message.getReceiver() != null ? message.getReceiver().getId() : null,
+            message.getText(),
+            message.getSentAt(),
+            message.isRead()
+        );
+    }
+}
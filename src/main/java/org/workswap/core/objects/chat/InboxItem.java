@@ -0,0 +1,35 @@
+package org.workswap.core.objects.chat;
+
+import java.time.LocalDateTime;
+
+// Строка списка чатов пользователя: превью последнего сообщения, непрочитанные, объявление и собеседник
+public record InboxItem(
+    Long chatId,
+    boolean temporary,
+    LocalDateTime createdAt,
+    String lastMessagePreview,
+    LocalDateTime lastMessageTime,
+    long unreadCount,
+    Long listingId,
+    Long interlocutorId,
+    String interlocutorName,
+    String interlocutorAvatarUrl
+) {
+    public LocalDateTime lastActivity() {
+        return lastMessageTime != null ? lastMessageTime : createdAt;
+    }
+
+    public InboxItem withMessage(String text, LocalDateTime sentAt, long unread) {
+        return new InboxItem(chatId, temporary, createdAt, text, sentAt, unread,
+            listingId, interlocutorId, interlocutorName, interlocutorAvatarUrl);
+    }
+
+    public InboxItem withUnread(long unread) {
+        return withMessage(lastMessagePreview, lastMessageTime, unread);
+    }
+
+    public InboxItem permanent() {
+        return new InboxItem(chatId, false, createdAt, lastMessagePreview, lastMessageTime, unreadCount,
+            listingId, interlocutorId, interlocutorName, interlocutorAvatarUrl);
+    }
+}
@@ -0,0 +1,15 @@
+package org.workswap.core.objects.chat;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MessageHistoryPage {
+
+    private final Long chatId;
+    private final List<HistoryMessage> messages; // от старых к новым
+    private final Long nextBeforeId; // null, если дошли до начала чата
+}
@@ -0,0 +1,44 @@
+package org.workswap.core.objects.stat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.workswap.core.objects.RunningStats;
+import org.workswap.core.objects.ValueHistogram;
+
+import lombok.Getter;
+
+// Частичный агрегат онлайна за сутки: статистики, гистограмма для квантилей и суммы по часам суток
+@Getter
+public class OnlineDayAggregate {
+
+    private final LocalDate day;
+    private final RunningStats stats;
+    private final ValueHistogram histogram;
+    private final double[] hourSums;
+    private final long[] hourCounts;
+
+    public OnlineDayAggregate(LocalDate day) {
+        this(day, new RunningStats(), new ValueHistogram(), new double[24], new long[24]);
+    }
+
+    public OnlineDayAggregate(LocalDate day, RunningStats stats, ValueHistogram histogram, double[] hourSums, long[] hourCounts) {
+        this.day = day;
+        this.stats = stats;
+        this.histogram = histogram;
+        this.hourSums = hourSums;
+        this.hourCounts = hourCounts;
+    }
+
+    public void add(LocalDateTime timestamp, int online) {
+        stats.add(online);
+        histogram.record(online);
+        int hour = timestamp.getHour();
+        hourSums[hour] += online;
+        hourCounts[hour]++;
+    }
+
+    public boolean isEmpty() {
+        return stats.getCount() == 0;
+    }
+}
@@ -0,0 +1,42 @@
+package org.workswap.core.objects.user;
+
+import java.time.LocalDateTime;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Состояние фоновой очистки аккаунта; поля пишет поток задачи, читают запросы прогресса
+@Getter
+@Setter
+public class PurgeProgress {
+
+    public enum Phase { QUEUED, MESSAGES, LISTINGS, ACCOUNT, DONE, FAILED }
+
+    private final String jobId;
+    private final Long userId;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Phase phase = Phase.QUEUED;
+    private volatile long totalMessages;
+    private volatile long deletedMessages;
+    private volatile long totalListings;
+    private volatile long deletedListings;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    public PurgeProgress(String jobId, Long userId) {
+        this.jobId = jobId;
+        this.userId = userId;
+    }
+
+    public int getPercent() {
+        if (phase == Phase.DONE) {
+            return 100;
+        }
+        long total = totalMessages + totalListings;
+        if (total == 0) {
+            return 0;
+        }
+        return (int) Math.min(99, (deletedMessages + deletedListings) * 100 / total);
+    }
+}
@@ -5,6 +5,8 @@ import java.util.List;
 import java.util.Locale;
 
 import org.workswap.common.dto.CategoryDTO;
+import org.workswap.core.objects.CategoryNode;
+import org.workswap.core.objects.CategoryTreeSnapshot;
 import org.workswap.datasource.central.model.listingModels.Category;
 
 public interface CategoryService {
@@ -15,7 +17,11 @@ public interface CategoryService {
     Category saveAndReturn(Category category);
 
     Category createCategory(CategoryDTO dto, List<String> translations) throws IOException;
+    // устарело: копии сущностей строятся из снимка при каждом вызове, лучше getCategoryNodes()
+    @Deprecated
     List<Category> getCategoryTree();
+    List<CategoryNode> getCategoryNodes();
+    CategoryTreeSnapshot getTreeSnapshot();
     Category getCategoryById(Long id);
     void deleteCategory(Long id);
     List<Category> getLeafCategories();
@@ -27,5 +33,8 @@ public interface CategoryService {
 
     //метод получения всех дочерних категорий
     List<Category> getAllDescendants(Category parent);
+    // устарело: для фильтров достаточно id — getAllDescendantIds()
+    @Deprecated
     List<Category> getAllDescendantsById(Long parentId);
+    List<Long> getAllDescendantIds(Long parentId);
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 
+import org.workswap.core.objects.chat.InboxItem;
+import org.workswap.core.objects.chat.MessageHistoryPage;
 import org.workswap.datasource.central.model.Listing;
 import org.workswap.datasource.central.model.User;
 import org.workswap.common.dto.chat.ChatDTO;
@@ -18,11 +20,21 @@ public interface ChatService {
 
     List<Chat> getUserChats(User user);
     List<ChatDTO> getChatsDTOForUser(User user, Locale locale);
+    // список чатов с собеседником и объявлением без загрузки сущностей
+    List<InboxItem> getInbox(User user);
 
     List<Message> getMessages(Chat chat);
+    List<Message> getMessagesBefore(Chat chat, Long beforeMessageId, int limit);
+    MessageHistoryPage getHistoryPage(Long chatId, User user, Long beforeMessageId, int limit);
+    void streamHistoryPage(Long chatId, User user, Long beforeMessageId, int limit);
     Message sendMessage(Chat chat, User sender, String text);
 
-    void notifyChatUpdate(Long chatId, User user, Locale locale);
+    void notifyChatUpdate(Long chatId, User user);
+    // устарело: локаль не используется — DTO списка чатов от языка не зависит
+    @Deprecated
+    default void notifyChatUpdate(Long chatId, User user, Locale locale) {
+        notifyChatUpdate(chatId, user);
+    }
     void markMessagesAsRead(Long chatId, User reader);
     void setPermanentChat(Chat chat);
     void deleteChat(Chat chat);
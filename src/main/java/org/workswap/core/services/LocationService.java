@@ -8,11 +8,13 @@ import org.workswap.datasource.central.model.listingModels.Location;
 public interface LocationService {
 
     Location findLocation(String param);
+    Long findLocationId(String param);
 
     void save(Location location);
     Location saveAndReturn(Location location);
     
     List<Location> getAllDescendants(Location location);
+    List<Long> getDescendantIds(Long locationId);
 
     List<Location> getCities(Long coutryId);
     List<Location> getCountries();
@@ -6,6 +6,7 @@ import java.util.Locale;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
+import org.workswap.core.objects.LocalizedText;
 import org.workswap.datasource.central.model.News;
 
 public interface NewsService {
@@ -32,4 +33,5 @@ public interface NewsService {
     Page<News> findSimilarNews(News currentNews, Pageable pageable);
 
     void localizeNews(News news, Locale locale);
+    LocalizedText getLocalizedText(News news, Locale locale);
 }
@@ -1,22 +1,54 @@
 package org.workswap.core.services.analytic;
 
 import org.springframework.stereotype.Component;
-import java.util.concurrent.atomic.AtomicInteger;
+import org.workswap.core.objects.PNCounter;
+import org.workswap.core.services.components.ClusterNode;
 
+import lombok.Getter;
+
+// Число онлайн-соединений; в кластере — сумма по всем узлам через PN-счётчик
 @Component
 public class OnlineCounter {
 
-    private final AtomicInteger online = new AtomicInteger(0);
+    @Getter
+    private final PNCounter counter;
+
+    // До первого обмена состоянием узел не знает о соседях и считал бы себя наименьшим;
+    // реестр сессий кластера снимает флаг после первого раунда рассылки
+    private volatile boolean clusterViewPending = false;
+
+    public OnlineCounter(ClusterNode clusterNode) {
+        this.counter = new PNCounter(clusterNode.getId(), clusterNode.getEpoch());
+    }
 
     public int increment() {
-        return online.incrementAndGet();
+        counter.increment();
+        return getCurrent();
     }
 
     public int decrement() {
-        return online.decrementAndGet();
+        counter.decrement();
+        return getCurrent();
     }
 
     public int getCurrent() {
-        return online.get();
+        return (int) Math.max(counter.value(), 0);
+    }
+
+    public int getLocal() {
+        return (int) Math.max(counter.localValue(), 0);
+    }
+
+    // Отчёт о глобальном онлайне отправляет один узел, иначе значение задвоится
+    public boolean isReportingNode() {
+        return !clusterViewPending && counter.isLowestNode();
+    }
+
+    public void awaitClusterView() {
+        clusterViewPending = true;
+    }
+
+    public void clusterViewReady() {
+        clusterViewPending = false;
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package org.workswap.core.services.command;
 import java.util.Map;
 
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.workswap.core.objects.user.PurgeProgress;
 import org.workswap.datasource.central.model.User;
 
 public interface UserCommandService {
@@ -16,6 +17,11 @@ public interface UserCommandService {
 
     //универсальный метод удаления, работает и используется
     void deleteUser(User user);
+
+    //удаление больших аккаунтов в фоне: сообщения порциями, затем deleteUser
+    PurgeProgress purgeUserAsync(Long userId);
+
+    PurgeProgress getPurgeProgress(String jobId);
     
     User save(User user);
 
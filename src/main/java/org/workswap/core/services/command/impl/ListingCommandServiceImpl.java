@@ -14,6 +14,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.workswap.common.enums.PriceType;
 import org.workswap.core.services.command.ListingCommandService;
+import org.workswap.core.services.components.CatalogIndex;
+import org.workswap.core.services.components.ListingStatRollup;
+import org.workswap.core.services.components.SiteCounters;
+import org.workswap.core.services.components.search.ListingSearchIndex;
+import org.workswap.core.services.util.ListingLocalizationService;
 import org.workswap.datasource.central.model.Listing;
 import org.workswap.datasource.central.model.User;
 import org.workswap.datasource.central.model.chat.Chat;
@@ -44,13 +49,34 @@ public class ListingCommandServiceImpl implements ListingCommandService {
     private final LocationRepository locationRepository;
     private final CategoryRepository categoryRepository;
 
+    private final ListingLocalizationService localizationService;
+    private final CatalogIndex catalogIndex;
+    private final ListingSearchIndex searchIndex;
+    private final SiteCounters siteCounters;
+    private final ListingStatRollup statRollup;
+
     public void save(Listing listing) {
         logger.debug("Сохраняем объявление: {}", listing.getId());
+        boolean created = listing.getId() == null;
         listingRepository.save(listing);
+        if (created) {
+            siteCounters.listingActivityChanged(false, listing.isActive());
+        }
+        localizationService.invalidate(listing.getId());
+        catalogIndex.refresh(listing.getId());
+        searchIndex.refresh(listing.getId());
     }
 
     public Listing saveAndReturn(Listing listing) {
-        return listingRepository.save(listing);
+        boolean created = listing.getId() == null;
+        Listing saved = listingRepository.save(listing);
+        if (created) {
+            siteCounters.listingActivityChanged(false, saved.isActive());
+        }
+        localizationService.invalidate(saved.getId());
+        catalogIndex.refresh(saved.getId());
+        searchIndex.refresh(saved.getId());
+        return saved;
     }
 
     @Transactional
@@ -70,6 +96,10 @@ public class ListingCommandServiceImpl implements ListingCommandService {
 
         logger.debug("Удаляем объявление");
         listingRepository.delete(listing);
+        siteCounters.listingDeleted(listing.isActive(), listing.getViews());
+        localizationService.invalidate(listing.getId());
+        catalogIndex.remove(listing.getId());
+        searchIndex.remove(listing.getId());
     }
 
     @Transactional
@@ -88,6 +118,9 @@ public class ListingCommandServiceImpl implements ListingCommandService {
         } else {
             logger.debug("У объявления не было снапшотов статистики");
         }
+
+        int rollups = statRollup.deleteListing(listing.getId());
+        logger.debug("Удалено свёрнутых окон статистики: {}", rollups);
     }
 
     @Transactional
@@ -120,6 +153,8 @@ public class ListingCommandServiceImpl implements ListingCommandService {
         if (!listing.getAuthor().getId().equals(user.getId())) {
             throw new AccessDeniedException("Это не ваше объявление!");
         }
+
+        boolean wasActive = listing.isActive();
         
         if (listing != null) {
             updates.forEach((key, value) -> {
@@ -170,6 +205,8 @@ public class ListingCommandServiceImpl implements ListingCommandService {
         }
 
         save(listing);
+        // метод не транзакционный: счётчик сдвигается только после успешного сохранения
+        siteCounters.listingActivityChanged(wasActive, listing.isActive());
     }
 
     @Transactional
@@ -3,14 +3,11 @@ package org.workswap.core.services.command.impl;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.workswap.common.dto.stat.OnlineStatSnapshotDTO;
@@ -20,17 +17,20 @@ import org.workswap.core.services.ReviewService;
 import org.workswap.core.services.command.ListingCommandService;
 import org.workswap.core.services.command.StatisticCommandService;
 import org.workswap.core.services.command.UserCommandService;
+import org.workswap.core.services.components.CatalogIndex;
+import org.workswap.core.services.components.ListingStatRollup;
+import org.workswap.core.services.components.ListingStatSnapshotWriter;
+import org.workswap.core.services.components.SiteCounters;
+import org.workswap.core.services.components.StatSnapshotCompactor;
 import org.workswap.core.services.query.ListingQueryService;
 import org.workswap.datasource.central.model.Listing;
 import org.workswap.datasource.central.model.Review;
 import org.workswap.datasource.central.model.User;
 import org.workswap.datasource.central.repository.ReviewRepository;
 import org.workswap.datasource.central.repository.listing.ListingRepository;
-import org.workswap.datasource.stats.model.ListingStatSnapshot;
 import org.workswap.datasource.stats.model.ListingView;
 import org.workswap.datasource.stats.model.OnlineStatSnapshot;
 import org.workswap.datasource.stats.model.UsersStatSnapshot;
-import org.workswap.datasource.stats.repository.ListingStatRepository;
 import org.workswap.datasource.stats.repository.ListingViewRepository;
 import org.workswap.datasource.stats.repository.OnlineStatRepository;
 import org.workswap.datasource.stats.repository.UsersStatRepository;
@@ -43,7 +43,6 @@ import lombok.RequiredArgsConstructor;
 public class StatisticCommandServiceImpl implements StatisticCommandService {
     
     private final ListingRepository listingRepository;
-    private final ListingStatRepository listingStatRepository;
     private final ReviewRepository reviewRepository;
     private final ListingViewRepository listingViewRepository;
     private final OnlineStatRepository onlineStatRepository;
@@ -54,68 +53,30 @@ public class StatisticCommandServiceImpl implements StatisticCommandService {
     private final ReviewService reviewService;
     private final UserCommandService userCommandService;
 
+    private final CatalogIndex catalogIndex;
+    private final ListingStatSnapshotWriter snapshotWriter;
+    private final StatSnapshotCompactor snapshotCompactor;
+    private final ListingStatRollup statRollup;
+    private final SiteCounters siteCounters;
+
     private static final Logger logger = LoggerFactory.getLogger(StatisticCommandService.class);
 
-    @Transactional
     public void cleanUpDuplicateListingsStat() {
-        List<ListingStatSnapshot> allSnapshots = listingStatRepository.findAll(Sort.by("listingId", "intervalType", "time"));
-
-        logger.debug("Найдено снапшотов: {}", allSnapshots.size());
-
-        Map<String, ListingStatSnapshot> seenSnapshots = new HashMap<>();
-        List<ListingStatSnapshot> toDelete = new ArrayList<>();
-
-        for (ListingStatSnapshot snapshot : allSnapshots) {
-            String key = snapshot.getListingId() + "-" +
-                         snapshot.getViews() + "-" +
-                         snapshot.getFavorites() + "-" +
-                         snapshot.getRating() + "-" +
-                         snapshot.getIntervalType();
-
-
-            if (seenSnapshots.containsKey(key)) {
-                toDelete.add(snapshot); // это повтор — добавляем в список на удаление
-            } else {
-                seenSnapshots.put(key, snapshot); // первый встретившийся снапшот
-            }
-        }
-
-        listingStatRepository.deleteAll(toDelete);
-        logger.debug("Удалено {} дубликатов статистики.", toDelete.size());
+        int deleted = snapshotCompactor.compact();
+        logger.debug("Удалено {} дубликатов статистики.", deleted);
     }
 
     @Transactional
     public void saveListingsStat(IntervalType intervalType) {
-        Duration checkWindow;
-
-        // Устанавливаем окно времени для каждого интервала
-        switch (intervalType) {
-            case FIVE_MINUTES -> checkWindow = Duration.ofMinutes(4);
-            case HOURLY -> checkWindow = Duration.ofMinutes(50);
-            case DAILY -> checkWindow = Duration.ofHours(20);
-            case WEEKLY -> checkWindow = Duration.ofDays(6); // для недельного (можно менять)
-            default -> throw new IllegalArgumentException("Unknown interval: " + intervalType);
+        if (intervalType != IntervalType.FIVE_MINUTES) {
+            // старшие уровни выводятся из младших, а не снимаются заново с объявлений
+            statRollup.rollUp(intervalType);
+            return;
         }
 
-        LocalDateTime since = LocalDateTime.now().minus(checkWindow);
-        List<Listing> listings = listingRepository.findAll();
-
-        for (Listing listing : listings) {
-            long count = listingStatRepository.countRecentSnapshots(listing.getId(), intervalType, since);
-            if (count > 0) {
-                continue; // уже есть снапшот за этот период
-            }
-
-            ListingStatSnapshot stat = new ListingStatSnapshot(
-                listing.getId(),
-                listing.getViews(),
-                listingRepository.countFavoritesByListingId(listing.getId()),
-                listing.getRating(),
-                intervalType
-            );
-
-            listingStatRepository.save(stat);
-        }
+        // окно чуть короче интервала, чтобы не пропустить снапшот из-за дрожания расписания
+        LocalDateTime since = LocalDateTime.now().minus(Duration.ofMinutes(4));
+        snapshotWriter.writeSnapshots(intervalType, since);
     }
 
     public double calculateAverageRatingForListing(Long listingId) {
@@ -199,6 +160,8 @@ public class StatisticCommandServiceImpl implements StatisticCommandService {
                 int views = listing.getViews();
                 listing.setViews(views + 1);
                 listingRepository.save(listing);
+                siteCounters.viewAdded();
+                catalogIndex.refresh(listingId);
             }
         }
     }
@@ -15,8 +15,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.workswap.common.enums.UserStatus;
 import org.workswap.common.enums.UserType;
+import org.workswap.core.objects.user.PurgeProgress;
 import org.workswap.core.services.command.ListingCommandService;
 import org.workswap.core.services.command.UserCommandService;
+import org.workswap.core.services.components.AccountPurgeJob;
+import org.workswap.core.services.components.ChatBulkDeleter;
+import org.workswap.core.services.components.SiteCounters;
 import org.workswap.core.services.query.PermissionQueryService;
 import org.workswap.core.services.query.UserQueryService;
 import org.workswap.datasource.central.model.Listing;
@@ -32,7 +36,6 @@ import org.workswap.datasource.central.repository.LocationRepository;
 import org.workswap.datasource.central.repository.NotificationRepository;
 import org.workswap.datasource.central.repository.ReviewRepository;
 import org.workswap.datasource.central.repository.UserRepository;
-import org.workswap.datasource.central.repository.chat.ChatRepository;
 
 import lombok.RequiredArgsConstructor;
 
@@ -45,8 +48,10 @@ public class UserCommandServiceImpl implements UserCommandService {
 
     private final UserQueryService queryService;
     private final PermissionQueryService permissionQueryService;
-    private final ChatRepository chatRepository;
     private final ListingCommandService listingCommandService;
+    private final ChatBulkDeleter bulkDeleter;
+    private final AccountPurgeJob purgeJob;
+    private final SiteCounters siteCounters;
 
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
@@ -101,7 +106,9 @@ public class UserCommandServiceImpl implements UserCommandService {
             roles
         );
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        siteCounters.userCreated();
+        return saved;
     }
 
     @Transactional
@@ -119,12 +126,13 @@ public class UserCommandServiceImpl implements UserCommandService {
             logger.debug("> Чистка чатов");
 
             if (!chatParticipants.isEmpty()) {
-                for (ChatParticipant chatParticipant : chatParticipants) {
-                    Chat chat = chatParticipant.getChat();
-                    user.getChatParticipants().remove(chatParticipant);
-                    logger.debug(">> Удаление чата {}", chat.getId());
-                    chatRepository.delete(chat);
-                }
+                // тот же путь, что и deleteChat: сообщения пачками, кэши собеседников сбрасываются после коммита
+                List<Chat> chats = chatParticipants.stream()
+                        .map(ChatParticipant::getChat)
+                        .toList();
+                user.getChatParticipants().removeAll(chatParticipants);
+                int deletedMessages = bulkDeleter.deleteChats(chats);
+                logger.debug(">> Удалено чатов: {}, сообщений: {}", chats.size(), deletedMessages);
             } else {
                 logger.debug(">> У пользователя не найдено чатов");
             }
@@ -148,10 +156,14 @@ public class UserCommandServiceImpl implements UserCommandService {
             logger.debug("> Чистка отзывов");
 
             if (!reviews.isEmpty()) {
-                for (Review review : reviews) {
-                    logger.debug(">> Удаление отзыва {}", review.getId());
-                    user.getReviews().remove(review);
-                    reviewRepository.delete(review);
+                logger.debug(">> Удаляем {} отзывов", reviews.size());
+                user.getReviews().removeAll(reviews);
+                List<Long> reviewIds = reviews.stream()
+                        .map(Review::getId)
+                        .toList();
+                for (int i = 0; i < reviewIds.size(); i += ChatBulkDeleter.CHUNK_SIZE) {
+                    reviewRepository.deleteAllByIdInBatch(
+                            reviewIds.subList(i, Math.min(i + ChatBulkDeleter.CHUNK_SIZE, reviewIds.size())));
                 }
             } else {
                 logger.debug(">> У пользователя не найдено отзывов");
@@ -163,7 +175,13 @@ public class UserCommandServiceImpl implements UserCommandService {
 
             if (!notifications.isEmpty()) {
                 logger.debug(">> Удаляем {} уведомлений", notifications.size());
-                notificationRepository.deleteAll(notifications);
+                List<Long> notificationIds = notifications.stream()
+                        .map(Notification::getId)
+                        .toList();
+                for (int i = 0; i < notificationIds.size(); i += ChatBulkDeleter.CHUNK_SIZE) {
+                    notificationRepository.deleteAllByIdInBatch(
+                            notificationIds.subList(i, Math.min(i + ChatBulkDeleter.CHUNK_SIZE, notificationIds.size())));
+                }
             } else {
                 logger.debug(">> У пользователя не найдено уведомлений");
             }
@@ -172,6 +190,7 @@ public class UserCommandServiceImpl implements UserCommandService {
             try {
                 logger.debug("Удаление пользователя {}", user.getId());
                 userRepository.deleteById(user.getId());
+                siteCounters.userDeleted();
             } catch (Exception e) {
                 logger.error("Ошибка при удалении пользователя {}: {}", user.getId(), e.getMessage(), e);
                 throw new RuntimeException("Ошибка при удалении пользователя", e);
@@ -183,9 +202,29 @@ public class UserCommandServiceImpl implements UserCommandService {
         }
     }
 
+    public PurgeProgress purgeUserAsync(Long userId) {
+        // объявления удаляются по одному в своих транзакциях, остальное — одной финальной
+        return purgeJob.start(userId, listingCommandService::delete, () -> {
+            User user = queryService.findUser(userId.toString());
+            if (user == null) {
+                throw new RuntimeException("Пользователь " + userId + " не найден");
+            }
+            deleteUser(user);
+        });
+    }
+
+    public PurgeProgress getPurgeProgress(String jobId) {
+        return purgeJob.getProgress(jobId);
+    }
+
     @Transactional
     public User save(User user) {
-        return userRepository.save(user);
+        boolean created = user.getId() == null;
+        User saved = userRepository.save(user);
+        if (created) {
+            siteCounters.userCreated();
+        }
+        return saved;
     }
 
     public void modifyUserParam(User user, Map<String, Object> updates) {
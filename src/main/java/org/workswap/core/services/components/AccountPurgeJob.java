@@ -0,0 +1,128 @@
+package org.workswap.core.services.components;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.workswap.core.objects.user.PurgeProgress;
+import org.workswap.core.objects.user.PurgeProgress.Phase;
+import org.workswap.datasource.central.model.Listing;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Фоновая очистка больших аккаунтов.
+ * Сначала сообщения чатов пользователя удаляются порциями, каждая в своей короткой транзакции,
+ * потом объявления — по одному в своей транзакции, и только затем в одной транзакции удаляется
+ * то, что осталось от аккаунта. Прогресс доступен по id задачи.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class AccountPurgeJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountPurgeJob.class);
+
+    private static final long PROGRESS_TTL_HOURS = 24;
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    private final ChatBulkDeleter bulkDeleter;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "account-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, PurgeProgress> jobs = new ConcurrentHashMap<>();
+
+    public AccountPurgeJob(ChatBulkDeleter bulkDeleter, PlatformTransactionManager transactionManager) {
+        this.bulkDeleter = bulkDeleter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // deleteListing вызывается для каждого объявления в своей транзакции,
+    // finalStep — в транзакции после них и должен удалить сам аккаунт
+    public PurgeProgress start(Long userId, Consumer<Listing> deleteListing, Runnable finalStep) {
+        dropFinished();
+
+        PurgeProgress progress = new PurgeProgress(UUID.randomUUID().toString(), userId);
+        jobs.put(progress.getJobId(), progress);
+        executor.submit(() -> run(progress, deleteListing, finalStep));
+
+        logger.debug("Поставлена очистка аккаунта {}, задача {}", userId, progress.getJobId());
+        return progress;
+    }
+
+    public PurgeProgress getProgress(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void run(PurgeProgress progress, Consumer<Listing> deleteListing, Runnable finalStep) {
+        try {
+            progress.setPhase(Phase.MESSAGES);
+            List<Long> chatIds = bulkDeleter.findChatIdsOfUser(progress.getUserId());
+            progress.setTotalMessages(bulkDeleter.countMessages(chatIds));
+
+            int deleted;
+            do {
+                deleted = bulkDeleter.deleteMessageChunk(chatIds, ChatBulkDeleter.CHUNK_SIZE);
+                progress.setDeletedMessages(progress.getDeletedMessages() + deleted);
+            } while (deleted > 0);
+
+            progress.setPhase(Phase.LISTINGS);
+            List<Long> listingIds = transactionTemplate.execute(status -> entityManager.createQuery(
+                    "SELECT l.id FROM Listing l WHERE l.author.id = :userId", Long.class)
+                .setParameter("userId", progress.getUserId())
+                .getResultList());
+            progress.setTotalListings(listingIds.size());
+
+            for (Long listingId : listingIds) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Listing listing = entityManager.find(Listing.class, listingId);
+                    if (listing != null) {
+                        deleteListing.accept(listing);
+                    }
+                });
+                progress.setDeletedListings(progress.getDeletedListings() + 1);
+            }
+
+            progress.setPhase(Phase.ACCOUNT);
+            transactionTemplate.executeWithoutResult(status -> finalStep.run());
+
+            progress.setPhase(Phase.DONE);
+            logger.debug("Аккаунт {} очищен, удалено сообщений: {}", progress.getUserId(), progress.getDeletedMessages());
+        } catch (RuntimeException e) {
+            progress.setError(e.getMessage());
+            progress.setPhase(Phase.FAILED);
+            logger.error("Ошибка очистки аккаунта {}: {}", progress.getUserId(), e.getMessage(), e);
+        } finally {
+            progress.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    private void dropFinished() {
+        LocalDateTime threshold = LocalDateTime.now().minusHours(PROGRESS_TTL_HOURS);
+        jobs.values().removeIf(p -> p.getFinishedAt() != null && p.getFinishedAt().isBefore(threshold));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
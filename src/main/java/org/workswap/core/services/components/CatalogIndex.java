@@ -0,0 +1,524 @@
+package org.workswap.core.services.components;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.workswap.core.objects.catalog.CatalogChangedEvent;
+import org.workswap.core.objects.catalog.CatalogCursor;
+import org.workswap.core.objects.catalog.CatalogFilter;
+import org.workswap.core.objects.catalog.CatalogSort;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Индекс активных объявлений каталога в памяти.
+ * Объявления разбиты на партиции (категория, локация, язык перевода), в каждой партиции
+ * хранятся массивы id, заранее отсортированные под каждый вариант {@link CatalogSort}.
+ * Изменение одних просмотров не пересобирает партицию: объявление только переставляется
+ * в массиве сортировки по популярности.
+ * Текстовый запрос обслуживается только если уже разрешён полнотекстовым индексом в набор id,
+ * фильтр "с отзывами" индекс не обслуживает — для него остаётся SQL.
+ */
+@Component
+@RequiredArgsConstructor
+@Profile({"production", "statistic"})
+public class CatalogIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogIndex.class);
+
+    private static final String ENTRY_QUERY =
+        "SELECT l.id, c.id, loc.id, l.price, l.rating, l.views, l.createdAt FROM Listing l " +
+        "LEFT JOIN l.category c LEFT JOIN l.location loc " +
+        "WHERE l.active = true AND l.temporary = false";
+
+    private static final String LANGUAGES_QUERY =
+        "SELECT l.id, KEY(tr) FROM Listing l JOIN l.translations tr " +
+        "WHERE l.active = true AND l.temporary = false";
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<PartitionKey, Partition> partitions = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        logger.debug("Строим индекс каталога");
+
+        Map<Long, Entry> loaded = new ConcurrentHashMap<>();
+        for (Object[] row : entityManager.createQuery(ENTRY_QUERY, Object[].class).getResultList()) {
+            Entry entry = toEntry(row);
+            loaded.put(entry.id, entry);
+        }
+        for (Object[] row : entityManager.createQuery(LANGUAGES_QUERY, Object[].class).getResultList()) {
+            Entry entry = loaded.get((Long) row[0]);
+            if (entry != null) {
+                entry.languages.add((String) row[1]);
+            }
+        }
+
+        synchronized (this) {
+            entries.clear();
+            partitions.clear();
+            loaded.values().forEach(this::addToPartitions);
+            entries.putAll(loaded);
+            ready = true;
+        }
+
+        logger.info("Индекс каталога построен: {} объявлений, {} партиций", entries.size(), partitions.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Перечитывает объявление из БД после коммита текущей транзакции
+    public void refresh(Long listingId) {
+        if (listingId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> reload(listingId));
+    }
+
+    public void remove(Long listingId) {
+        if (listingId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            Entry previous;
+            synchronized (this) {
+                previous = entries.remove(listingId);
+                removeFromPartitions(previous);
+            }
+            publishChange(listingId, previous, null);
+        });
+    }
+
+    /**
+     * Возвращает упорядоченные id страницы каталога или null, если запрос не может быть
+     * обслужен индексом и нужно идти в БД.
+     */
+    public List<Long> findPage(CatalogFilter filter, CatalogSort sort, CatalogCursor after, int offset, int limit) {
+        boolean hasSearch = filter.getSearchQuery() != null && !filter.getSearchQuery().isBlank();
+        if (!ready || filter.isHasReviews() || (hasSearch && filter.getMatchedIds() == null)) {
+            return null;
+        }
+
+        Set<Long> matchedIds = filter.getMatchedIds();
+
+        Set<Long> categoryIds = new HashSet<>(filter.getCategoryIds());
+        Set<Long> locationIds = new HashSet<>(filter.getLocationIds());
+        Set<String> languages = new HashSet<>(filter.getLanguages());
+
+        Comparator<Entry> comparator = comparator(sort);
+        Entry probe = after != null ? Entry.probe(sort, after) : null;
+
+        // k-way merge по подходящим партициям; дубликаты (одно объявление на нескольких языках) соседствуют
+        PriorityQueue<PostingCursor> heap = new PriorityQueue<>((a, b) -> comparator.compare(a.current(), b.current()));
+        for (Map.Entry<PartitionKey, Partition> e : partitions.entrySet()) {
+            PartitionKey key = e.getKey();
+            if (!categoryIds.isEmpty() && !categoryIds.contains(key.categoryId())) continue;
+            if (!locationIds.isEmpty() && !locationIds.contains(key.locationId())) continue;
+            if (!languages.contains(key.language())) continue;
+
+            long[] postings = e.getValue().sorted(sort);
+            int start = probe != null ? upperBound(postings, probe, comparator) : 0;
+            PostingCursor cursor = new PostingCursor(postings, start);
+            if (cursor.advanceToLive()) {
+                heap.add(cursor);
+            }
+        }
+
+        List<Long> result = new ArrayList<>(limit);
+        long previous = Long.MIN_VALUE;
+        int skipped = 0;
+
+        while (!heap.isEmpty() && result.size() < limit) {
+            PostingCursor cursor = heap.poll();
+            long id = cursor.current.id;
+
+            if (id != previous && (matchedIds == null || matchedIds.contains(id))) {
+                previous = id;
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    result.add(id);
+                }
+            }
+
+            cursor.position++;
+            if (cursor.advanceToLive()) {
+                heap.add(cursor);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Страница результатов поиска в порядке релевантности: совпадения полнотекстового индекса
+     * в их порядке, отфильтрованные по категории, локации и языку. null — индекс запрос не обслуживает.
+     */
+    public List<Long> findRankedPage(CatalogFilter filter, int offset, int limit) {
+        if (!ready || filter.isHasReviews() || filter.getMatchedIds() == null) {
+            return null;
+        }
+
+        Set<Long> categoryIds = new HashSet<>(filter.getCategoryIds());
+        Set<Long> locationIds = new HashSet<>(filter.getLocationIds());
+        List<String> languages = filter.getLanguages();
+
+        List<Long> result = new ArrayList<>(limit);
+        int skipped = 0;
+        for (Long id : filter.getMatchedIds()) {
+            Entry entry = entries.get(id);
+            if (entry == null) continue;
+            if (!categoryIds.isEmpty() && !categoryIds.contains(entry.categoryId)) continue;
+            if (!locationIds.isEmpty() && !locationIds.contains(entry.locationId)) continue;
+            if (languages.stream().noneMatch(entry.languages::contains)) continue;
+
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(id);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private void reload(Long listingId) {
+        List<Object[]> rows = entityManager.createQuery(ENTRY_QUERY + " AND l.id = :id", Object[].class)
+            .setParameter("id", listingId)
+            .getResultList();
+
+        Entry entry = rows.isEmpty() ? null : toEntry(rows.get(0));
+        if (entry != null) {
+            entityManager.createQuery(LANGUAGES_QUERY + " AND l.id = :id", Object[].class)
+                .setParameter("id", listingId)
+                .getResultList()
+                .forEach(row -> entry.languages.add((String) row[1]));
+        }
+
+        Entry previous;
+        synchronized (this) {
+            previous = entries.get(listingId);
+            if (previous != null && entry != null && previous.differsOnlyInViews(entry)) {
+                entries.put(listingId, entry);
+                repositionByViews(entry);
+            } else {
+                entries.remove(listingId);
+                removeFromPartitions(previous);
+                if (entry != null) {
+                    entries.put(listingId, entry);
+                    addToPartitions(entry);
+                }
+            }
+        }
+
+        publishChange(listingId, previous, entry);
+    }
+
+    private void publishChange(Long listingId, Entry previous, Entry current) {
+        Set<Long> categoryIds = new HashSet<>();
+        Set<Long> locationIds = new HashSet<>();
+        for (Entry e : new Entry[] { previous, current }) {
+            if (e == null) {
+                continue;
+            }
+            if (e.categoryId != null) {
+                categoryIds.add(e.categoryId);
+            }
+            if (e.locationId != null) {
+                locationIds.add(e.locationId);
+            }
+        }
+
+        // просмотры в карточке каталога не показываются — меняется только порядок по популярности
+        boolean viewsOnly = previous != null && current != null && previous.differsOnlyInViews(current);
+        Set<CatalogSort> affectedSorts = viewsOnly
+            ? EnumSet.of(CatalogSort.POPULARITY)
+            : EnumSet.allOf(CatalogSort.class);
+
+        eventPublisher.publishEvent(new CatalogChangedEvent(listingId, categoryIds, locationIds, affectedSorts, viewsOnly));
+    }
+
+    private void addToPartitions(Entry entry) {
+        for (String lang : entry.languages) {
+            partitions
+                .computeIfAbsent(new PartitionKey(entry.categoryId, entry.locationId, lang), k -> new Partition())
+                .add(entry.id);
+        }
+    }
+
+    // Вызывается под this после того, как в entries уже лежит новое значение
+    private void repositionByViews(Entry entry) {
+        for (String lang : entry.languages) {
+            Partition partition = partitions.get(new PartitionKey(entry.categoryId, entry.locationId, lang));
+            if (partition != null) {
+                partition.reposition(entry, CatalogSort.POPULARITY);
+            }
+        }
+    }
+
+    private void removeFromPartitions(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        for (String lang : entry.languages) {
+            PartitionKey key = new PartitionKey(entry.categoryId, entry.locationId, lang);
+            Partition partition = partitions.get(key);
+            if (partition != null && partition.remove(entry.id)) {
+                partitions.remove(key);
+            }
+        }
+    }
+
+    private Entry toEntry(Object[] row) {
+        return new Entry(
+            (Long) row[0],
+            (Long) row[1],
+            (Long) row[2],
+            row[3] != null ? ((Number) row[3]).doubleValue() : null,
+            row[4] != null ? ((Number) row[4]).doubleValue() : null,
+            row[5] != null ? ((Number) row[5]).intValue() : null,
+            (LocalDateTime) row[6]
+        );
+    }
+
+    // Тот же порядок, что и в ListingCatalogQuery: значение по направлению сортировки, null в конце, затем id
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<Entry> comparator(CatalogSort sort) {
+        return (a, b) -> {
+            Comparable ka = a.key(sort);
+            Comparable kb = b.key(sort);
+            if (ka == null || kb == null) {
+                if (ka != kb) {
+                    return ka == null ? 1 : -1;
+                }
+            } else {
+                int c = ka.compareTo(kb);
+                if (c != 0) {
+                    return sort.isAscending() ? c : -c;
+                }
+            }
+            int c = Long.compare(a.id, b.id);
+            return sort.isAscending() ? c : -c;
+        };
+    }
+
+    // Первая позиция, строго следующая за курсором
+    private int upperBound(long[] postings, Entry probe, Comparator<Entry> comparator) {
+        int low = 0;
+        int high = postings.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Entry entry = entries.get(postings[mid]);
+            if (entry == null || comparator.compare(entry, probe) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private record PartitionKey(Long categoryId, Long locationId, String language) {}
+
+    // Текущая запись фиксируется при продвижении: объявление могут удалить из индекса, пока курсор в куче
+    private class PostingCursor {
+        private final long[] postings;
+        private int position;
+        private Entry current;
+
+        PostingCursor(long[] postings, int position) {
+            this.postings = postings;
+            this.position = position;
+        }
+
+        Entry current() {
+            return current;
+        }
+
+        // Пропускаем id, удалённые из индекса после сборки массива
+        boolean advanceToLive() {
+            while (position < postings.length) {
+                current = entries.get(postings[position]);
+                if (current != null) {
+                    return true;
+                }
+                position++;
+            }
+            current = null;
+            return false;
+        }
+    }
+
+    private class Partition {
+        private final Set<Long> members = new HashSet<>();
+        private volatile long[][] sorted; // null — партиция изменилась, пересобрать при чтении
+
+        synchronized void add(long id) {
+            members.add(id);
+            sorted = null;
+        }
+
+        // true, если партиция опустела
+        synchronized boolean remove(long id) {
+            members.remove(id);
+            sorted = null;
+            return members.isEmpty();
+        }
+
+        // Переставляет объявление в одном массиве сортировки: удаление и вставка бинарным поиском, без пересортировки
+        synchronized void reposition(Entry entry, CatalogSort sort) {
+            long[][] current = sorted;
+            if (current == null) {
+                return; // массивы и так пересоберутся при чтении
+            }
+
+            long[] ids = current[sort.ordinal()];
+            int from = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == entry.id) {
+                    from = i;
+                    break;
+                }
+            }
+            if (from < 0) {
+                return;
+            }
+
+            long[] without = new long[ids.length - 1];
+            System.arraycopy(ids, 0, without, 0, from);
+            System.arraycopy(ids, from + 1, without, from, ids.length - from - 1);
+
+            int to = upperBound(without, entry, comparator(sort));
+            long[] updated = new long[ids.length];
+            System.arraycopy(without, 0, updated, 0, to);
+            updated[to] = entry.id;
+            System.arraycopy(without, to, updated, to + 1, without.length - to);
+
+            // читатели берут массивы без блокировки — подменяем копию целиком
+            long[][] next = current.clone();
+            next[sort.ordinal()] = updated;
+            sorted = next;
+        }
+
+        long[] sorted(CatalogSort sort) {
+            long[][] current = sorted;
+            if (current == null) {
+                current = rebuildSorted();
+            }
+            return current[sort.ordinal()];
+        }
+
+        private synchronized long[][] rebuildSorted() {
+            if (sorted != null) {
+                return sorted;
+            }
+            Entry[] snapshot = members.stream()
+                .map(entries::get)
+                .filter(Objects::nonNull)
+                .toArray(Entry[]::new);
+
+            long[][] result = new long[CatalogSort.values().length][];
+            for (CatalogSort sort : CatalogSort.values()) {
+                Entry[] copy = snapshot.clone();
+                Arrays.sort(copy, comparator(sort));
+                long[] ids = new long[copy.length];
+                for (int i = 0; i < copy.length; i++) {
+                    ids[i] = copy[i].id;
+                }
+                result[sort.ordinal()] = ids;
+            }
+            sorted = result;
+            return result;
+        }
+    }
+
+    private static class Entry {
+        private final long id;
+        private final Long categoryId;
+        private final Long locationId;
+        private final Double price;
+        private final Double rating;
+        private final Integer views;
+        private final LocalDateTime createdAt;
+        private final Set<String> languages = ConcurrentHashMap.newKeySet();
+
+        Entry(long id, Long categoryId, Long locationId, Double price, Double rating, Integer views, LocalDateTime createdAt) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.locationId = locationId;
+            this.price = price;
+            this.rating = rating;
+            this.views = views;
+            this.createdAt = createdAt;
+        }
+
+        static Entry probe(CatalogSort sort, CatalogCursor cursor) {
+            Object value = cursor.getValue();
+            return new Entry(
+                cursor.getLastId(),
+                null,
+                null,
+                sort == CatalogSort.PRICE ? (Double) value : null,
+                sort == CatalogSort.RATING ? (Double) value : null,
+                sort == CatalogSort.POPULARITY ? (Integer) value : null,
+                sort == CatalogSort.DATE ? (LocalDateTime) value : null
+            );
+        }
+
+        boolean differsOnlyInViews(Entry other) {
+            return !Objects.equals(views, other.views)
+                && Objects.equals(categoryId, other.categoryId)
+                && Objects.equals(locationId, other.locationId)
+                && Objects.equals(price, other.price)
+                && Objects.equals(rating, other.rating)
+                && Objects.equals(createdAt, other.createdAt)
+                && languages.equals(other.languages);
+        }
+
+        Comparable<?> key(CatalogSort sort) {
+            switch (sort) {
+                case PRICE:
+                    return price;
+                case RATING:
+                    return rating;
+                case POPULARITY:
+                    return views;
+                case DATE:
+                default:
+                    return createdAt;
+            }
+        }
+    }
+}
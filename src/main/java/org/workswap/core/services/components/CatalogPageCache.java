@@ -0,0 +1,194 @@
+package org.workswap.core.services.components;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.workswap.common.dto.listing.CatalogListingDTO;
+import org.workswap.core.objects.catalog.CatalogChangedEvent;
+import org.workswap.core.objects.catalog.CatalogFilter;
+import org.workswap.core.objects.catalog.CatalogSort;
+
+/**
+ * Кэш готовых страниц каталога для анонимных запросов без поиска.
+ * Ключ — то, из чего страница фактически посчитана: раскрытые id категорий и локаций фильтра,
+ * языки, локаль DTO, сортировка и номер страницы. Поэтому разные написания одного запроса
+ * не делят страницу, посчитанную по другому фильтру. По тем же id категорий и локаций
+ * при изменении объявления сбрасываются только страницы, в которые оно могло попасть.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class CatalogPageCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    // Поколение по сортировке растёт с каждым изменением, которое её затрагивает:
+    // страница, загрузка которой пересеклась с изменением, в кэше не остаётся
+    private final Map<CatalogSort, AtomicLong> generations = new EnumMap<>(CatalogSort.class);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CatalogPageCache(
+        @Value("${catalog.cache.max-size:2000}") int maxEntries,
+        @Value("${catalog.cache.ttl-seconds:60}") long ttlSeconds
+    ) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        for (CatalogSort sort : CatalogSort.values()) {
+            generations.put(sort, new AtomicLong());
+        }
+    }
+
+    public List<CatalogListingDTO> get(
+        CatalogFilter filter,
+        Locale locale,
+        CatalogSort sort,
+        int page,
+        Supplier<List<CatalogListingDTO>> loader
+    ) {
+        Key key = new Key(
+            Set.copyOf(filter.getCategoryIds()),
+            Set.copyOf(filter.getLocationIds()),
+            Set.copyOf(filter.getLanguages()),
+            locale,
+            sort,
+            page,
+            filter.isHasReviews());
+        long now = System.currentTimeMillis();
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            hits.incrementAndGet();
+            return entry.listings;
+        }
+
+        misses.incrementAndGet();
+        AtomicLong generation = generations.get(sort);
+        long started = generation.get();
+        List<CatalogListingDTO> listings = List.copyOf(loader.get());
+        if (generation.get() != started) {
+            return listings; // данные могли измениться во время загрузки — отдаём, но не кэшируем
+        }
+
+        if (entries.size() >= maxEntries) {
+            evict(now);
+        }
+        Entry loaded = new Entry(
+            listings,
+            now + ttlMillis,
+            key.categoryIds(),
+            key.locationIds(),
+            sort);
+        entries.put(key, loaded);
+
+        // инвалидация сначала меняет поколение, потом чистит страницы: если она прошла между
+        // проверкой и записью, её чистка страницу могла не увидеть — убираем сами
+        if (generation.get() != started) {
+            entries.remove(key, loaded);
+        }
+        return listings;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        event.getAffectedSorts().forEach(sort -> generations.get(sort).incrementAndGet());
+        entries.entrySet().removeIf(e -> {
+            boolean affected = e.getValue().isAffectedBy(event);
+            if (affected) {
+                invalidations.incrementAndGet();
+            }
+            return affected;
+        });
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "size", entries.size(),
+            "hits", hits.get(),
+            "misses", misses.get(),
+            "evictions", evictions.get(),
+            "invalidations", invalidations.get()
+        );
+    }
+
+    // Сначала выкидываем просроченные страницы, потом самые старые — до 90% лимита
+    private synchronized void evict(long now) {
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().expiresAt <= now;
+            if (expired) {
+                evictions.incrementAndGet();
+            }
+            return expired;
+        });
+
+        int target = maxEntries * 9 / 10;
+        int excess = entries.size() - target;
+        if (excess <= 0) {
+            return;
+        }
+
+        entries.entrySet().stream()
+            .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt))
+            .limit(excess)
+            .map(Map.Entry::getKey)
+            .toList()
+            .forEach(key -> {
+                if (entries.remove(key) != null) {
+                    evictions.incrementAndGet();
+                }
+            });
+    }
+
+    private record Key(
+        Set<Long> categoryIds,
+        Set<Long> locationIds,
+        Set<String> languages,
+        Locale locale,
+        CatalogSort sort,
+        int page,
+        boolean hasReviews
+    ) {}
+
+    private record Entry(List<CatalogListingDTO> listings, long expiresAt, Set<Long> categoryIds, Set<Long> locationIds, CatalogSort sort) {
+
+        // Пустой набор в фильтре означает «без ограничения» — такая страница затрагивается всегда
+        boolean isAffectedBy(CatalogChangedEvent event) {
+            return event.getAffectedSorts().contains(sort)
+                && intersects(categoryIds, event.getCategoryIds())
+                && intersects(locationIds, event.getLocationIds());
+        }
+
+        private static boolean intersects(Set<Long> filter, Collection<Long> changed) {
+            if (filter.isEmpty()) {
+                return true;
+            }
+            for (Long id : changed) {
+                if (filter.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
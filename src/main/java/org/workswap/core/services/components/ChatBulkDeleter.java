@@ -0,0 +1,130 @@
+package org.workswap.core.services.components;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.workswap.core.objects.chat.ChatsDeletedEvent;
+import org.workswap.datasource.central.model.chat.Chat;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Массовое удаление сообщений чатов запросами DELETE ... WHERE ... IN (...) порциями,
+ * вместо загрузки и удаления каждого сообщения по отдельности.
+ * Через {@link #deleteChats} идёт любое удаление чатов, чтобы кэши участников сбрасывались одинаково.
+ */
+@Component
+@RequiredArgsConstructor
+@Profile({"production", "statistic"})
+public class ChatBulkDeleter {
+
+    public static final int CHUNK_SIZE = 500;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public List<Long> findChatIdsOfUser(Long userId) {
+        return entityManager.createQuery(
+                "SELECT p.chat.id FROM ChatParticipant p WHERE p.user.id = :userId", Long.class)
+            .setParameter("userId", userId)
+            .getResultList();
+    }
+
+    @Transactional(readOnly = true)
+    public long countMessages(Collection<Long> chatIds) {
+        long total = 0;
+        for (List<Long> chunk : chunks(chatIds)) {
+            total += entityManager.createQuery(
+                    "SELECT COUNT(m) FROM Message m WHERE m.chat.id IN :chatIds", Long.class)
+                .setParameter("chatIds", chunk)
+                .getSingleResult();
+        }
+        return total;
+    }
+
+    // Все сообщения чатов в текущей транзакции, по запросу на каждые CHUNK_SIZE чатов
+    @Transactional
+    public int deleteMessagesOfChats(Collection<Long> chatIds) {
+        int deleted = 0;
+        for (List<Long> chunk : chunks(chatIds)) {
+            deleted += entityManager.createQuery("DELETE FROM Message m WHERE m.chat.id IN :chatIds")
+                .setParameter("chatIds", chunk)
+                .executeUpdate();
+        }
+        return deleted;
+    }
+
+    /**
+     * Удаляет чаты вместе с сообщениями. Сообщения незагруженных чатов удаляются массово,
+     * а уже загруженные в контекст оставляются каскаду — массовый DELETE разошёлся бы с ними.
+     * После коммита кэши списков чатов и счётчики непрочитанных чистятся у всех участников.
+     */
+    @Transactional
+    public int deleteChats(Collection<Chat> chats) {
+        if (chats.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> chatIds = new ArrayList<>(chats.size());
+        List<Long> bulkChatIds = new ArrayList<>();
+        for (Chat chat : chats) {
+            chatIds.add(chat.getId());
+            if (!Hibernate.isInitialized(chat.getMessages())) {
+                bulkChatIds.add(chat.getId());
+            }
+        }
+
+        int deleted = bulkChatIds.isEmpty() ? 0 : deleteMessagesOfChats(bulkChatIds);
+
+        for (Chat chat : chats) {
+            entityManager.remove(entityManager.contains(chat) ? chat : entityManager.merge(chat));
+        }
+
+        eventPublisher.publishEvent(new ChatsDeletedEvent(chatIds));
+        return deleted;
+    }
+
+    // Одна порция сообщений в отдельной короткой транзакции; 0 — удалять больше нечего
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int deleteMessageChunk(Collection<Long> chatIds, int limit) {
+        int deleted = 0;
+        for (List<Long> chunk : chunks(chatIds)) {
+            List<Long> messageIds = entityManager.createQuery(
+                    "SELECT m.id FROM Message m WHERE m.chat.id IN :chatIds", Long.class)
+                .setParameter("chatIds", chunk)
+                .setMaxResults(limit - deleted)
+                .getResultList();
+
+            if (!messageIds.isEmpty()) {
+                deleted += entityManager.createQuery("DELETE FROM Message m WHERE m.id IN :ids")
+                    .setParameter("ids", messageIds)
+                    .executeUpdate();
+            }
+            if (deleted >= limit) {
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += CHUNK_SIZE) {
+            chunks.add(all.subList(i, Math.min(i + CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,229 @@
+package org.workswap.core.services.components;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.workswap.core.objects.chat.ChatsDeletedEvent;
+import org.workswap.core.objects.chat.InboxItem;
+
+/**
+ * Денормализованная модель списка чатов пользователя: по каждому чату превью и время
+ * последнего сообщения, число непрочитанных, признак временного чата, объявление и собеседник.
+ * Инкрементально обновляется после коммита отправки, прочтения, закрепления и удаления чата,
+ * хранится в ограниченном LRU-кэше по пользователям. Отрисовка списка — один поиск по ключу:
+ * чаты держатся упорядоченными по активности, а не сортируются при каждом чтении.
+ * Пока список загружается, в кэше лежит заготовка: изменение, пришедшее во время загрузки,
+ * помечает её устаревшей, и загруженный список отдаётся без сохранения.
+ */
+@Component
+@Profile("production")
+public class ChatInboxCache {
+
+    private static final Comparator<InboxItem> BY_ACTIVITY = Comparator
+        .comparing(InboxItem::lastActivity, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(InboxItem::chatId, Comparator.reverseOrder());
+
+    private final long ttlMillis;
+    private final Map<Long, Inbox> inboxes;
+
+    public ChatInboxCache(
+        @Value("${chat.inbox.max-users:10000}") int maxUsers,
+        @Value("${chat.inbox.ttl-seconds:600}") long ttlSeconds
+    ) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.inboxes = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Inbox> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    // Чаты пользователя от последней активности к более ранней; при промахе — загрузка через loader
+    public List<InboxItem> get(Long userId, Supplier<Collection<InboxItem>> loader) {
+        long now = System.currentTimeMillis();
+        Inbox inbox;
+        synchronized (inboxes) {
+            inbox = inboxes.get(userId);
+        }
+
+        if (inbox != null && inbox.isLoaded() && inbox.loadedAt + ttlMillis > now) {
+            return inbox.view();
+        }
+
+        // заготовка регистрируется до чтения из БД, чтобы изменения во время загрузки её не миновали
+        Inbox loading = new Inbox(now);
+        synchronized (inboxes) {
+            inboxes.put(userId, loading);
+        }
+
+        Collection<InboxItem> items;
+        try {
+            items = loader.get();
+        } catch (RuntimeException | Error e) {
+            synchronized (inboxes) {
+                inboxes.remove(userId, loading);
+            }
+            throw e;
+        }
+
+        if (loading.fill(items)) {
+            return loading.view();
+        }
+
+        // во время загрузки пришло изменение: результат мог его не увидеть — не кэшируем
+        synchronized (inboxes) {
+            inboxes.remove(userId, loading);
+        }
+        return items.stream().sorted(BY_ACTIVITY).toList();
+    }
+
+    // Чата нет в загруженном списке — собеседник неизвестен, такой список перечитывается целиком
+    public void messageSent(Long chatId, Long senderId, Long receiverId, String text, LocalDateTime sentAt) {
+        TransactionCallbacks.afterCommit(() -> {
+            updateOrEvict(senderId, chatId, item -> item.withMessage(text, sentAt, item.unreadCount()));
+            updateOrEvict(receiverId, chatId, item -> item.withMessage(text, sentAt, item.unreadCount() + 1));
+        });
+    }
+
+    public void chatRead(Long chatId, Long readerId) {
+        TransactionCallbacks.afterCommit(() -> update(readerId, chatId, item -> item == null ? null : item.withUnread(0)));
+    }
+
+    public void chatPermanent(Long chatId) {
+        TransactionCallbacks.afterCommit(() -> forEachInbox(inbox -> inbox.update(chatId, item -> item == null ? null : item.permanent())));
+    }
+
+    @EventListener
+    public void onChatsDeleted(ChatsDeletedEvent event) {
+        List<Long> chatIds = event.getChatIds();
+        TransactionCallbacks.afterCommit(() -> forEachInbox(inbox -> chatIds.forEach(chatId -> inbox.update(chatId, item -> null))));
+    }
+
+    // Новый чат: проще перечитать список участников целиком при следующем запросе
+    public void evictUsers(Collection<Long> userIds) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (inboxes) {
+                userIds.forEach(inboxes::remove);
+            }
+        });
+    }
+
+    private void update(Long userId, Long chatId, UnaryOperator<InboxItem> change) {
+        if (userId == null) {
+            return;
+        }
+        Inbox inbox;
+        synchronized (inboxes) {
+            inbox = inboxes.get(userId);
+        }
+        // списка нет — обновлять нечего, его соберёт холодная загрузка
+        if (inbox != null) {
+            inbox.update(chatId, change);
+        }
+    }
+
+    private void updateOrEvict(Long userId, Long chatId, UnaryOperator<InboxItem> change) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (inboxes) {
+            Inbox inbox = inboxes.get(userId);
+            if (inbox != null && !inbox.updateExisting(chatId, change)) {
+                inboxes.remove(userId, inbox);
+            }
+        }
+    }
+
+    private void forEachInbox(Consumer<Inbox> action) {
+        List<Inbox> snapshot;
+        synchronized (inboxes) {
+            snapshot = List.copyOf(inboxes.values());
+        }
+        snapshot.forEach(action);
+    }
+
+    private static class Inbox {
+        private final long loadedAt;
+        private final Map<Long, InboxItem> items = new HashMap<>();
+        private final NavigableSet<InboxItem> ordered = new TreeSet<>(BY_ACTIVITY);
+
+        private boolean loaded = false;
+        private boolean stale = false;
+        private List<InboxItem> view; // готовый список для чтения; null — пересобрать после изменения
+
+        Inbox(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        synchronized boolean isLoaded() {
+            return loaded;
+        }
+
+        // false — пока шла загрузка, пришло изменение, и заготовка в кэш не годится
+        synchronized boolean fill(Collection<InboxItem> loadedItems) {
+            if (stale) {
+                return false;
+            }
+            for (InboxItem item : loadedItems) {
+                put(item);
+            }
+            loaded = true;
+            return true;
+        }
+
+        synchronized void update(Long chatId, UnaryOperator<InboxItem> change) {
+            if (!loaded) {
+                stale = true;
+                return;
+            }
+            InboxItem previous = items.remove(chatId);
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+            InboxItem updated = change.apply(previous);
+            if (updated != null) {
+                put(updated);
+            }
+            view = null;
+        }
+
+        // false — список загружен, но чата в нём нет
+        synchronized boolean updateExisting(Long chatId, UnaryOperator<InboxItem> change) {
+            if (loaded && !items.containsKey(chatId)) {
+                return false;
+            }
+            update(chatId, change);
+            return true;
+        }
+
+        synchronized List<InboxItem> view() {
+            if (view == null) {
+                view = List.copyOf(ordered);
+            }
+            return view;
+        }
+
+        private void put(InboxItem item) {
+            InboxItem previous = items.put(item.chatId(), item);
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+            ordered.add(item);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.workswap.core.services.components;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Список чатов пользователя одним проекционным запросом: чат, его последнее сообщение,
+ * объявление и собеседник (id, имя, аватар) и время последней активности. Сортировка по активности
+ * делается в БД, сущности и их ленивые коллекции не загружаются.
+ */
+@Component
+@Profile("production")
+public class ChatInboxQuery {
+
+    private static final String INBOX_QUERY =
+        "SELECT c.id, c.temporary, c.createdAt, m.id, m.text, m.sentAt, l.id, u.id, u.name, u.avatarUrl " +
+        "FROM ChatParticipant p JOIN p.chat c " +
+        "LEFT JOIN c.listing l " +
+        "LEFT JOIN ChatParticipant op ON op.chat = c AND op.user.id <> :userId " +
+        "LEFT JOIN op.user u " +
+        "LEFT JOIN Message m ON m.chat = c AND m.sentAt = " +
+        "(SELECT MAX(m2.sentAt) FROM Message m2 WHERE m2.chat = c) " +
+        "WHERE p.user.id = :userId " +
+        "ORDER BY COALESCE(m.sentAt, c.createdAt) DESC, c.id DESC, m.id DESC";
+
+    public record InboxRow(
+        Long chatId,
+        boolean temporary,
+        LocalDateTime createdAt,
+        String lastMessageText,
+        LocalDateTime lastMessageTime,
+        Long listingId,
+        Long interlocutorId,
+        String interlocutorName,
+        String interlocutorAvatarUrl
+    ) {
+        public LocalDateTime lastActivity() {
+            return lastMessageTime != null ? lastMessageTime : createdAt;
+        }
+    }
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public List<InboxRow> findInbox(Long userId) {
+        List<Object[]> rows = entityManager.createQuery(INBOX_QUERY, Object[].class)
+            .setParameter("userId", userId)
+            .getResultList();
+
+        List<InboxRow> inbox = new ArrayList<>(rows.size());
+        Set<Long> seen = new HashSet<>();
+        for (Object[] row : rows) {
+            Long chatId = (Long) row[0];
+            // два сообщения с одинаковым sentAt дают две строки — берём с большим id
+            if (!seen.add(chatId)) {
+                continue;
+            }
+            inbox.add(new InboxRow(
+                chatId,
+                (Boolean) row[1],
+                (LocalDateTime) row[2],
+                (String) row[4],
+                (LocalDateTime) row[5],
+                (Long) row[6],
+                (Long) row[7],
+                (String) row[8],
+                (String) row[9]));
+        }
+        return inbox;
+    }
+}
@@ -0,0 +1,197 @@
+package org.workswap.core.services.components;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.workswap.common.dto.chat.ChatDTO;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Пакетная рассылка обновлений списка чатов.
+ * Обновления одного пользователя, пришедшие в пределах окна, сливаются: DTO каждого чата
+ * строится один раз при отправке, а в кадр попадают только поля, изменившиеся
+ * с прошлой отправки. Один кадр на пользователя за окно вместо кадра на каждое сообщение.
+ * Таймер только отмеряет окно; DTO строятся и кадры отправляются в ограниченном пуле,
+ * чтобы медленная загрузка списка чатов одного пользователя не задерживала остальных.
+ */
+@Component
+@Profile("production")
+public class ChatUpdateDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatUpdateDispatcher.class);
+
+    private static final String DESTINATION = "queue/chats.updates";
+    private static final int MAX_TRACKED_USERS = 10000;
+    private static final int FLUSH_QUEUE_CAPACITY = 1000;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long windowMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chat-update-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // при переполнении очереди отправку выполняет таймер — это притормаживает новые окна, но обновления не теряются
+    private final ThreadPoolExecutor flushPool;
+
+    // Обновления пользователя, накопленные за окно
+    private static class Batch {
+        private final Map<Long, Supplier<ChatDTO>> chats = new LinkedHashMap<>(); // чат -> как построить DTO
+        private int updates;
+    }
+
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+
+    // Последнее отправленное состояние полей по каждому чату пользователя
+    private final Map<String, Map<Long, Map<String, Object>>> lastSent = new ConcurrentHashMap<>();
+
+    private final AtomicLong updatesReceived = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong framesSaved = new AtomicLong();
+
+    public ChatUpdateDispatcher(
+        SimpMessagingTemplate messagingTemplate,
+        @Value("${chat.updates.window-ms:50}") long windowMillis,
+        @Value("${chat.updates.flush-threads:4}") int flushThreads
+    ) {
+        this.messagingTemplate = messagingTemplate;
+        this.windowMillis = windowMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.flushPool = new ThreadPoolExecutor(
+            flushThreads, flushThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(FLUSH_QUEUE_CAPACITY),
+            r -> {
+                Thread thread = new Thread(r, "chat-update-flush-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // dtoSupplier == null или вернувший null означает, что чат у пользователя пропал
+    public void submit(String userEmail, Long chatId, Supplier<ChatDTO> dtoSupplier) {
+        updatesReceived.incrementAndGet();
+
+        boolean[] first = { false };
+        pending.compute(userEmail, (email, batch) -> {
+            if (batch == null) {
+                batch = new Batch();
+                first[0] = true;
+            }
+            batch.chats.put(chatId, dtoSupplier);
+            batch.updates++;
+            return batch;
+        });
+
+        if (first[0]) {
+            scheduler.schedule(() -> flushPool.execute(() -> flush(userEmail)), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "updatesReceived", updatesReceived.get(),
+            "framesSent", framesSent.get(),
+            "framesSaved", framesSaved.get()
+        );
+    }
+
+    private void flush(String userEmail) {
+        Batch batch = pending.remove(userEmail);
+        if (batch == null || batch.chats.isEmpty()) {
+            return;
+        }
+        Map<Long, Supplier<ChatDTO>> chats = batch.chats;
+        boolean sent = false;
+
+        try {
+            if (lastSent.size() > MAX_TRACKED_USERS && !lastSent.containsKey(userEmail)) {
+                lastSent.clear(); // после сброса следующие кадры просто уйдут полными
+            }
+            Map<Long, Map<String, Object>> previous = lastSent.computeIfAbsent(userEmail, k -> new ConcurrentHashMap<>());
+
+            // следующее окно того же пользователя может начать отправку, пока эта не закончилась:
+            // кадры одного пользователя отправляются по очереди
+            synchronized (previous) {
+                List<Map<String, Object>> deltas = new ArrayList<>(chats.size());
+                chats.forEach((chatId, supplier) -> {
+                    ChatDTO dto = supplier != null ? supplier.get() : null;
+                    if (dto == null) {
+                        previous.remove(chatId);
+                        deltas.add(Map.of("id", chatId, "removed", true));
+                        return;
+                    }
+
+                    Map<String, Object> current = toFields(dto);
+                    Map<String, Object> delta = diff(previous.get(chatId), current);
+                    previous.put(chatId, current);
+                    if (delta.size() > 1) { // кроме id что-то изменилось
+                        deltas.add(delta);
+                    }
+                });
+
+                if (!deltas.isEmpty()) {
+                    messagingTemplate.convertAndSendToUser(userEmail, DESTINATION, Map.of("updates", deltas));
+                    framesSent.incrementAndGet();
+                    sent = true;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Не удалось отправить обновления чатов пользователю {}: {}", userEmail, e.getMessage());
+            return;
+        }
+
+        // без пакетирования каждое обновление ушло бы отдельным кадром
+        framesSaved.addAndGet(batch.updates - (sent ? 1 : 0));
+    }
+
+    private static Map<String, Object> toFields(ChatDTO dto) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", dto.getId());
+        fields.put("unreadCount", dto.getUnreadCount());
+        fields.put("hasNewMessage", dto.isHasNewMessage());
+        fields.put("temporary", dto.isTemporary());
+        fields.put("lastMessagePreview", dto.getLastMessagePreview());
+        fields.put("lastMessageTime", dto.getLastMessageTime());
+        fields.put("formattedLastMessageTime", dto.getFormattedLastMessageTime());
+        return fields;
+    }
+
+    private static Map<String, Object> diff(Map<String, Object> previous, Map<String, Object> current) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        current.forEach((field, value) -> {
+            if (field.equals("id") || previous == null || !Objects.equals(previous.get(field), value)) {
+                delta.put(field, value);
+            }
+        });
+        return delta;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        flushPool.shutdown();
+    }
+}
@@ -0,0 +1,23 @@
+package org.workswap.core.services.components;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+
+// Идентификатор этого экземпляра приложения в кластере и эпоха — момент запуска, меняется при каждом рестарте
+@Getter
+@Component
+public class ClusterNode {
+
+    private final String id;
+    private final long epoch = System.currentTimeMillis();
+
+    public ClusterNode(@Value("${cluster.node-id:}") String configuredId) {
+        this.id = configuredId == null || configuredId.isBlank()
+            ? UUID.randomUUID().toString()
+            : configuredId;
+    }
+}
@@ -0,0 +1,153 @@
+package org.workswap.core.services.components;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.workswap.core.objects.catalog.CatalogCursor;
+import org.workswap.core.objects.catalog.CatalogFilter;
+import org.workswap.core.objects.catalog.CatalogSort;
+import org.workswap.datasource.central.model.Listing;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Запрос каталога с сортировкой на стороне БД.
+ * Порядок всегда (поле сортировки, id), null-значения идут в конце, поэтому
+ * следующую страницу можно искать по курсору без OFFSET. Категория и локация нужны
+ * карточке каталога, поэтому подтягиваются тем же запросом.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class ListingCatalogQuery {
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public List<Listing> findPage(CatalogFilter filter, CatalogSort sort, CatalogCursor after, int offset, int limit) {
+        if (filter.getMatchedIds() != null && filter.getMatchedIds().isEmpty()) {
+            return List.of(); // полнотекстовый поиск ничего не нашёл
+        }
+
+        StringBuilder jpql = new StringBuilder(
+            "SELECT l FROM Listing l LEFT JOIN FETCH l.category LEFT JOIN FETCH l.location");
+        boolean hasSearch = appendFilter(jpql, filter);
+
+        if (after != null) {
+            appendKeyset(jpql, sort, after);
+        }
+
+        String direction = sort.isAscending() ? "ASC" : "DESC";
+        jpql.append(" ORDER BY l.").append(sort.getField()).append(" ").append(direction).append(" NULLS LAST")
+            .append(", l.id ").append(direction);
+
+        TypedQuery<Listing> query = entityManager.createQuery(jpql.toString(), Listing.class);
+        bindFilter(query, filter, hasSearch);
+        if (after != null) {
+            if (after.getValue() != null) {
+                query.setParameter("cursorValue", after.getValue());
+            }
+            query.setParameter("cursorId", after.getLastId());
+        }
+
+        return query
+            .setFirstResult(offset)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    // Объявления по id, найденным индексом, одним запросом вместе с категорией и локацией; порядок не гарантирован
+    @Transactional(readOnly = true)
+    public List<Listing> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.createQuery(
+                "SELECT l FROM Listing l LEFT JOIN FETCH l.category LEFT JOIN FETCH l.location WHERE l.id IN :ids",
+                Listing.class)
+            .setParameter("ids", ids)
+            .getResultList();
+    }
+
+    // Id всех объявлений под фильтром без сортировки — порядок задаёт вызывающий (например, релевантность)
+    @Transactional(readOnly = true)
+    public List<Long> findIds(CatalogFilter filter) {
+        if (filter.getMatchedIds() != null && filter.getMatchedIds().isEmpty()) {
+            return List.of();
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT l.id FROM Listing l");
+        boolean hasSearch = appendFilter(jpql, filter);
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class);
+        bindFilter(query, filter, hasSearch);
+        return query.getResultList();
+    }
+
+    // true, если текстовый запрос ищется LIKE-ом, а не уже разрешён полнотекстовым индексом
+    private boolean appendFilter(StringBuilder jpql, CatalogFilter filter) {
+        jpql.append(" WHERE l.active = true AND l.temporary = false");
+
+        if (!filter.getCategoryIds().isEmpty()) {
+            jpql.append(" AND l.category.id IN :categoryIds");
+        }
+
+        if (!filter.getLocationIds().isEmpty()) {
+            jpql.append(" AND l.location.id IN :locationIds");
+        }
+
+        if (filter.isHasReviews()) {
+            jpql.append(" AND EXISTS (SELECT r FROM Review r WHERE r.listing = l)");
+        }
+
+        if (filter.getMatchedIds() != null) {
+            jpql.append(" AND l.id IN :matchedIds");
+        }
+
+        boolean hasSearch = filter.getMatchedIds() == null
+            && filter.getSearchQuery() != null && !filter.getSearchQuery().isBlank();
+
+        jpql.append(" AND EXISTS (SELECT tr FROM Listing lt JOIN lt.translations tr WHERE lt = l AND KEY(tr) IN :languages");
+        if (hasSearch) {
+            jpql.append(" AND (LOWER(tr.title) LIKE :search OR LOWER(tr.description) LIKE :search)");
+        }
+        jpql.append(")");
+
+        return hasSearch;
+    }
+
+    private void bindFilter(TypedQuery<?> query, CatalogFilter filter, boolean hasSearch) {
+        if (!filter.getCategoryIds().isEmpty()) {
+            query.setParameter("categoryIds", filter.getCategoryIds());
+        }
+        if (!filter.getLocationIds().isEmpty()) {
+            query.setParameter("locationIds", filter.getLocationIds());
+        }
+        if (filter.getMatchedIds() != null) {
+            query.setParameter("matchedIds", filter.getMatchedIds());
+        }
+        query.setParameter("languages", filter.getLanguages());
+        if (hasSearch) {
+            query.setParameter("search", "%" + filter.getSearchQuery().trim().toLowerCase() + "%");
+        }
+    }
+
+    private void appendKeyset(StringBuilder jpql, CatalogSort sort, CatalogCursor after) {
+        String field = "l." + sort.getField();
+        String cmp = sort.isAscending() ? ">" : "<";
+
+        if (after.getValue() == null) {
+            // курсор уже в хвосте с null-значениями — дальше идём только по id
+            jpql.append(" AND ").append(field).append(" IS NULL AND l.id ").append(cmp).append(" :cursorId");
+        } else {
+            jpql.append(" AND (").append(field).append(" ").append(cmp).append(" :cursorValue")
+                .append(" OR (").append(field).append(" = :cursorValue AND l.id ").append(cmp).append(" :cursorId)")
+                .append(" OR ").append(field).append(" IS NULL)");
+        }
+    }
+}
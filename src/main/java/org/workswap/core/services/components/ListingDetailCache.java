@@ -0,0 +1,132 @@
+package org.workswap.core.services.components;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.workswap.common.dto.listing.ListingDTO;
+import org.workswap.core.objects.catalog.CatalogChangedEvent;
+
+/**
+ * Кэш карточек объявлений с объединением одновременных запросов (single-flight).
+ * Пока одна загрузка по ключу (id, язык) в полёте, остальные вызывающие ждут её результат,
+ * а не идут в БД сами. Готовый DTO живёт короткий TTL и сбрасывается при изменении объявления.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class ListingDetailCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Слот загрузки; инвалидация его удаляет, и загрузка, начатая до неё, результат не сохраняет
+    private final Map<Key, CompletableFuture<ListingDTO>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public ListingDetailCache(
+        @Value("${listing.detail-cache.max-size:10000}") int maxEntries,
+        @Value("${listing.detail-cache.ttl-seconds:5}") long ttlSeconds
+    ) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public ListingDTO get(Long id, String locale, Supplier<ListingDTO> loader) {
+        Key key = new Key(id, locale);
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits.incrementAndGet();
+            return entry.dto;
+        }
+
+        CompletableFuture<ListingDTO> own = new CompletableFuture<>();
+        CompletableFuture<ListingDTO> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        misses.incrementAndGet();
+        try {
+            ListingDTO dto = loader.get();
+            if (dto != null) {
+                publish(key, own, dto);
+            }
+            own.complete(dto);
+            return dto;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        // сначала слоты: новые запросы не присоединятся к загрузке, начатой до изменения,
+        // а она сама уже не сохранит результат; всё, что успело сохраниться, удаляется следом
+        inFlight.keySet().removeIf(key -> key.id.equals(id));
+        entries.keySet().removeIf(key -> key.id.equals(id));
+    }
+
+    // Сохраняет результат, только пока слот этой загрузки на месте; проверка и запись — под блокировкой слота
+    private void publish(Key key, CompletableFuture<ListingDTO> own, ListingDTO dto) {
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current == own) {
+                if (entries.size() >= maxEntries) {
+                    entries.clear(); // грубое ограничение памяти; TTL всё равно короткий
+                }
+                entries.put(key, new Entry(dto, System.currentTimeMillis() + ttlMillis));
+            }
+            return current;
+        });
+    }
+
+    // Просмотр объявления карточку не меняет, кроме счётчика — его догонит TTL
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isViewsOnly()) {
+            return;
+        }
+        invalidate(event.getListingId());
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "size", entries.size(),
+            "hits", hits.get(),
+            "misses", misses.get(),
+            "coalesced", coalesced.get()
+        );
+    }
+
+    private static ListingDTO await(CompletableFuture<ListingDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(Long id, String locale) {}
+
+    private record Entry(ListingDTO dto, long expiresAt) {}
+}
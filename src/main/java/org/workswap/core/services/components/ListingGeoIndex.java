@@ -0,0 +1,364 @@
+package org.workswap.core.services.components;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.workswap.core.objects.catalog.CatalogChangedEvent;
+import org.workswap.core.services.LocationService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Пространственный индекс активных объявлений.
+ * Координаты локаций берутся из файла (id или название локации; широта; долгота), так как
+ * в сущности Location их нет. Локации разложены по сетке ячеек в {@link #CELL_DEGREES} градуса,
+ * поиск по радиусу просматривает только ячейки, попадающие в ограничивающий прямоугольник.
+ * Объявление привязано к координатам своей локации (города).
+ * Путь к файлу задаётся location.geo.coordinates; без него поиск по радиусу выключен, а указанный,
+ * но отсутствующий файл останавливает запуск. Изменения каталога применяются в фоне:
+ * id изменённых объявлений копятся и перечитываются из БД одним запросом.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class ListingGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingGeoIndex.class);
+
+    private static final double CELL_DEGREES = 0.5;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final int CELLS_PER_CIRCLE = (int) Math.round(360 / CELL_DEGREES);
+
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private static final String LISTING_LOCATION_QUERY =
+        "SELECT l.id, l.location.id FROM Listing l " +
+        "WHERE l.active = true AND l.temporary = false AND l.location IS NOT NULL";
+
+    public record GeoPoint(double lat, double lon) {}
+
+    public record GeoHit(long listingId, long locationId, double distanceKm) {}
+
+    private record LocationPoint(long locationId, GeoPoint point) {}
+
+    private final LocationService locationService;
+    private final TransactionTemplate transactionTemplate;
+    private final Path coordinatesPath; // null — координаты не настроены
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    private volatile Map<Long, GeoPoint> points = Map.of();
+    private volatile Map<Long, List<LocationPoint>> cells = Map.of();
+
+    // Внутри локации новые объявления (больший id) идут первыми
+    private final Map<Long, NavigableSet<Long>> listingsByLocation = new ConcurrentHashMap<>();
+    private final Map<Long, Long> locationByListing = new ConcurrentHashMap<>();
+
+    // Объявления, изменившиеся после последнего фонового обновления
+    private final Set<Long> dirtyListings = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "geo-index-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ListingGeoIndex(
+        LocationService locationService,
+        PlatformTransactionManager transactionManager,
+        @Value("${location.geo.coordinates:}") String coordinatesPath
+    ) {
+        this.locationService = locationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.coordinatesPath = coordinatesPath == null || coordinatesPath.isBlank() ? null : Path.of(coordinatesPath);
+    }
+
+    @PostConstruct
+    public void checkCoordinatesFile() {
+        if (coordinatesPath == null) {
+            logger.info("Файл координат локаций не задан (location.geo.coordinates), поиск по радиусу выключен");
+            return;
+        }
+        if (!Files.isReadable(coordinatesPath)) {
+            throw new IllegalStateException("Файл координат локаций не найден или недоступен: " + coordinatesPath.toAbsolutePath());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        loadCoordinates();
+
+        Map<Long, Long> loaded = new HashMap<>();
+        for (Object[] row : entityManager.createQuery(LISTING_LOCATION_QUERY, Object[].class).getResultList()) {
+            loaded.put((Long) row[0], (Long) row[1]);
+        }
+
+        synchronized (this) {
+            listingsByLocation.clear();
+            locationByListing.clear();
+            loaded.forEach(this::put);
+        }
+
+        logger.debug("Гео-индекс построен: {} локаций с координатами, {} объявлений", points.size(), loaded.size());
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isViewsOnly()) {
+            return; // просмотры на локацию и активность не влияют
+        }
+        dirtyListings.add(event.getListingId());
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshScheduled.compareAndSet(false, true)) {
+            return; // уже запланированное обновление заберёт и это объявление
+        }
+        try {
+            refreshExecutor.execute(this::refreshDirty);
+        } catch (RejectedExecutionException e) {
+            refreshScheduled.set(false); // остановка приложения
+        }
+    }
+
+    private void refreshDirty() {
+        refreshScheduled.set(false);
+        if (dirtyListings.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(dirtyListings);
+        dirtyListings.removeAll(ids);
+
+        try {
+            for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + REFRESH_BATCH_SIZE, ids.size()));
+                Map<Long, Long> locations = new HashMap<>();
+                transactionTemplate.executeWithoutResult(status -> entityManager.createQuery(
+                        LISTING_LOCATION_QUERY + " AND l.id IN :ids", Object[].class)
+                    .setParameter("ids", chunk)
+                    .getResultList()
+                    .forEach(row -> locations.put((Long) row[0], (Long) row[1])));
+
+                synchronized (this) {
+                    for (Long listingId : chunk) {
+                        removeListing(listingId);
+                        Long locationId = locations.get(listingId);
+                        if (locationId != null) {
+                            put(listingId, locationId);
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // вернём объявления в очередь — подхватит следующее изменение каталога
+            dirtyListings.addAll(ids);
+            logger.warn("Не удалось обновить гео-индекс: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    public GeoPoint getPoint(Long locationId) {
+        return locationId != null ? points.get(locationId) : null;
+    }
+
+    /**
+     * Объявления в радиусе от точки, по возрастанию расстояния.
+     * Внутри одной локации расстояние одинаковое, там порядок — от новых к старым.
+     */
+    public List<GeoHit> findWithin(GeoPoint center, double radiusKm, int offset, int limit) {
+        if (center == null || radiusKm <= 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double lonDelta = radiusKm / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(center.lat())), 0.01));
+
+        int minLat = cellIndex(center.lat() - latDelta);
+        int maxLat = cellIndex(center.lat() + latDelta);
+        int minLon = cellIndex(center.lon() - lonDelta);
+        int maxLon = cellIndex(center.lon() + lonDelta);
+        if (maxLon - minLon + 1 >= CELLS_PER_CIRCLE) {
+            minLon = cellIndex(-180);  // у полюса прямоугольник охватывает все долготы
+            maxLon = minLon + CELLS_PER_CIRCLE - 1;
+        }
+
+        Map<Long, List<LocationPoint>> grid = cells;
+        List<double[]> nearby = new ArrayList<>(); // {locationId, distance}
+
+        for (int latCell = minLat; latCell <= maxLat; latCell++) {
+            for (int lonCell = minLon; lonCell <= maxLon; lonCell++) {
+                List<LocationPoint> cell = grid.get(cellKey(latCell, wrapLon(lonCell)));
+                if (cell == null) {
+                    continue;
+                }
+                for (LocationPoint lp : cell) {
+                    double distance = distanceKm(center, lp.point());
+                    if (distance <= radiusKm) {
+                        nearby.add(new double[] { lp.locationId(), distance });
+                    }
+                }
+            }
+        }
+
+        nearby.sort(Comparator.<double[]>comparingDouble(a -> a[1]).thenComparingDouble(a -> a[0]));
+
+        List<GeoHit> result = new ArrayList<>(limit);
+        int skipped = 0;
+        for (double[] location : nearby) {
+            long locationId = (long) location[0];
+            NavigableSet<Long> listings = listingsByLocation.get(locationId);
+            if (listings == null) {
+                continue;
+            }
+
+            if (skipped + listings.size() <= offset) {
+                skipped += listings.size(); // вся локация до нужной страницы
+                continue;
+            }
+
+            for (Long listingId : listings) {
+                if (skipped++ < offset) {
+                    continue;
+                }
+                result.add(new GeoHit(listingId, locationId, location[1]));
+                if (result.size() == limit) {
+                    return result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public static double distanceKm(GeoPoint a, GeoPoint b) {
+        double dLat = Math.toRadians(b.lat() - a.lat());
+        double dLon = Math.toRadians(b.lon() - a.lon());
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(a.lat())) * Math.cos(Math.toRadians(b.lat()))
+            * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+
+    private void put(Long listingId, Long locationId) {
+        locationByListing.put(listingId, locationId);
+        listingsByLocation
+            .computeIfAbsent(locationId, k -> new ConcurrentSkipListSet<>(Comparator.reverseOrder()))
+            .add(listingId);
+    }
+
+    private void removeListing(Long listingId) {
+        Long locationId = locationByListing.remove(listingId);
+        if (locationId == null) {
+            return;
+        }
+        NavigableSet<Long> listings = listingsByLocation.get(locationId);
+        if (listings != null) {
+            listings.remove(listingId);
+            if (listings.isEmpty()) {
+                listingsByLocation.remove(locationId);
+            }
+        }
+    }
+
+    private void loadCoordinates() {
+        if (coordinatesPath == null) {
+            return;
+        }
+
+        Map<Long, GeoPoint> loadedPoints = new HashMap<>();
+        Map<Long, List<LocationPoint>> loadedCells = new HashMap<>();
+
+        try {
+            for (String line : Files.readAllLines(coordinatesPath, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] parts = line.split(";");
+                if (parts.length < 3) {
+                    logger.warn("Некорректная строка в файле координат: {}", line);
+                    continue;
+                }
+
+                Long locationId = locationService.findLocationId(parts[0].trim());
+                if (locationId == null) {
+                    logger.warn("Локация из файла координат не найдена: {}", parts[0]);
+                    continue;
+                }
+
+                GeoPoint point;
+                try {
+                    point = new GeoPoint(Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim()));
+                } catch (NumberFormatException e) {
+                    logger.warn("Некорректные координаты для {}: {}", parts[0], line);
+                    continue;
+                }
+
+                loadedPoints.put(locationId, point);
+                loadedCells
+                    .computeIfAbsent(cellKey(cellIndex(point.lat()), wrapLon(cellIndex(point.lon()))), k -> new ArrayList<>())
+                    .add(new LocationPoint(locationId, point));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать файл координат " + coordinatesPath, e);
+        }
+
+        points = Map.copyOf(loadedPoints);
+        cells = Map.copyOf(loadedCells);
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    // Поиск через 180-й меридиан: ячейки долготы замыкаются по кругу
+    private static int wrapLon(int lonCell) {
+        int min = cellIndex(-180);
+        return Math.floorMod(lonCell - min, CELLS_PER_CIRCLE) + min;
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+}
@@ -0,0 +1,434 @@
+package org.workswap.core.services.components;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.workswap.common.enums.IntervalType;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Свёртка статистики объявлений по уровням: 5 минут → час → сутки → неделя.
+ * Каждый уровень строится из предыдущего, а не снимается заново с объявлений: для окна хранится
+ * минимум, максимум и последнее значение просмотров, избранного и рейтинга — одна узкая строка
+ * на (объявление, уровень, начало окна) без id и служебных полей.
+ * Сворачиваются только закрытые окна; конец последнего свёрнутого окна хранится в отметке уровня.
+ * После свёртки старые данные уровней удаляются по сроку хранения, но не раньше, чем их свернули.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class ListingStatRollup {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingStatRollup.class);
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private static final String RAW_SCAN =
+        "SELECT s.listingId, s.time, s.views, s.favorites, s.rating FROM ListingStatSnapshot s " +
+        "WHERE s.intervalType = :intervalType AND s.time >= :from AND s.time < :to " +
+        "ORDER BY s.listingId, s.time";
+
+    private static final String ROLLUP_SCAN =
+        "SELECT listing_id, bucket_start, views_min, views_max, views_last, " +
+        "favorites_min, favorites_max, favorites_last, rating_min, rating_max, rating_last " +
+        "FROM listing_stat_rollup WHERE tier = ? AND bucket_start >= ? AND bucket_start < ? " +
+        "ORDER BY listing_id, bucket_start";
+
+    private static final String INSERT =
+        "INSERT INTO listing_stat_rollup (listing_id, tier, bucket_start, views_min, views_max, views_last, " +
+        "favorites_min, favorites_max, favorites_last, rating_min, rating_max, rating_last) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public record MetricRange(double min, double max) {
+
+        public MetricRange merge(MetricRange other) {
+            if (other == null) {
+                return this;
+            }
+            return new MetricRange(Math.min(min, other.min), Math.max(max, other.max));
+        }
+    }
+
+    // Агрегат одного окна; точки приходят в порядке времени, поэтому last — последнее пришедшее
+    private static final class Bucket {
+
+        final long listingId;
+        final LocalDateTime start;
+        int viewsMin = Integer.MAX_VALUE, viewsMax = Integer.MIN_VALUE, viewsLast;
+        int favoritesMin = Integer.MAX_VALUE, favoritesMax = Integer.MIN_VALUE, favoritesLast;
+        double ratingMin = Double.MAX_VALUE, ratingMax = -Double.MAX_VALUE, ratingLast;
+
+        Bucket(long listingId, LocalDateTime start) {
+            this.listingId = listingId;
+            this.start = start;
+        }
+
+        boolean covers(long listingId, LocalDateTime start) {
+            return this.listingId == listingId && this.start.equals(start);
+        }
+
+        void add(int vMin, int vMax, int vLast, int fMin, int fMax, int fLast, double rMin, double rMax, double rLast) {
+            viewsMin = Math.min(viewsMin, vMin);
+            viewsMax = Math.max(viewsMax, vMax);
+            viewsLast = vLast;
+            favoritesMin = Math.min(favoritesMin, fMin);
+            favoritesMax = Math.max(favoritesMax, fMax);
+            favoritesLast = fLast;
+            ratingMin = Math.min(ratingMin, rMin);
+            ratingMax = Math.max(ratingMax, rMax);
+            ratingLast = rLast;
+        }
+    }
+
+    private final EntityManagerFactory statsEntityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MaintenanceWatermarks watermarks;
+    private final Map<IntervalType, Integer> retentionDays;
+
+    public ListingStatRollup(
+        @Qualifier("statsEntityManagerFactory") EntityManagerFactory statsEntityManagerFactory,
+        @Qualifier("statsDataSource") DataSource statsDataSource,
+        @Qualifier("statsTransactionManager") PlatformTransactionManager statsTransactionManager,
+        MaintenanceWatermarks watermarks,
+        @Value("${stats.retention.five-minutes-days:3}") int fiveMinutesDays,
+        @Value("${stats.retention.hourly-days:35}") int hourlyDays,
+        @Value("${stats.retention.daily-days:400}") int dailyDays,
+        @Value("${stats.retention.weekly-days:0}") int weeklyDays
+    ) {
+        this.statsEntityManagerFactory = statsEntityManagerFactory;
+        this.jdbcTemplate = new JdbcTemplate(statsDataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(statsTransactionManager);
+        this.watermarks = watermarks;
+        // 0 — хранить без ограничения
+        this.retentionDays = Map.of(
+            IntervalType.FIVE_MINUTES, fiveMinutesDays,
+            IntervalType.HOURLY, hourlyDays,
+            IntervalType.DAILY, dailyDays,
+            IntervalType.WEEKLY, weeklyDays
+        );
+    }
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute(
+            "CREATE TABLE IF NOT EXISTS listing_stat_rollup (" +
+            "listing_id BIGINT NOT NULL, tier VARCHAR(16) NOT NULL, bucket_start TIMESTAMP NOT NULL, " +
+            "views_min INT NOT NULL, views_max INT NOT NULL, views_last INT NOT NULL, " +
+            "favorites_min INT NOT NULL, favorites_max INT NOT NULL, favorites_last INT NOT NULL, " +
+            "rating_min DOUBLE PRECISION NOT NULL, rating_max DOUBLE PRECISION NOT NULL, " +
+            "rating_last DOUBLE PRECISION NOT NULL, " +
+            "PRIMARY KEY (listing_id, tier, bucket_start))");
+    }
+
+    // Сворачивает все закрытые окна уровня, которых ещё нет, и чистит устаревшие данные; возвращает число окон
+    public int rollUp(IntervalType tier) {
+        IntervalType source = sourceOf(tier);
+
+        LocalDateTime to = floor(tier, LocalDateTime.now());
+        if (source != IntervalType.FIVE_MINUTES) {
+            // старший уровень не может обогнать младший
+            LocalDateTime sourceEnd = rolledUntil(source);
+            if (sourceEnd == null) {
+                return 0;
+            }
+            to = min(to, floor(tier, sourceEnd));
+        }
+
+        LocalDateTime from = rolledUntil(tier);
+        if (from == null) {
+            LocalDateTime earliest = earliestOf(source);
+            if (earliest == null) {
+                return 0;
+            }
+            from = floor(tier, earliest);
+        }
+
+        int written = 0;
+        if (from.isBefore(to)) {
+            // повторный запуск после сбоя перезапишет недописанный диапазон
+            jdbcTemplate.update("DELETE FROM listing_stat_rollup WHERE tier = ? AND bucket_start >= ? AND bucket_start < ?",
+                tier.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+
+            written = source == IntervalType.FIVE_MINUTES
+                ? rollUpRaw(tier, from, to)
+                : rollUpTier(tier, source, from, to);
+
+            watermarks.set(watermarkName(tier), to.toEpochSecond(ZoneOffset.UTC));
+            logger.debug("Свёртка {}: окна с {} по {}, записано {}", tier, from, to, written);
+        }
+
+        applyRetention(source);
+        applyRetention(tier);
+        return written;
+    }
+
+    // Минимум и максимум метрики по свёрнутым окнам уровня внутри [from, to); null — данных нет
+    public MetricRange findRange(Long listingId, IntervalType tier, LocalDateTime from, LocalDateTime to, String metric) {
+        String column = columnOf(metric);
+        if (!from.isBefore(to)) {
+            return null;
+        }
+
+        List<MetricRange> rows = jdbcTemplate.query(
+            "SELECT MIN(" + column + "_min), MAX(" + column + "_max), COUNT(*) FROM listing_stat_rollup " +
+            "WHERE listing_id = ? AND tier = ? AND bucket_start >= ? AND bucket_start < ?",
+            (rs, i) -> rs.getLong(3) == 0 ? null : new MetricRange(rs.getDouble(1), rs.getDouble(2)),
+            listingId, tier.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // Свёрнутые окна всех уровней удалённого объявления
+    public int deleteListing(Long listingId) {
+        return jdbcTemplate.update("DELETE FROM listing_stat_rollup WHERE listing_id = ?", listingId);
+    }
+
+    // Конец последнего свёрнутого окна уровня; null — уровень ещё не сворачивался
+    public LocalDateTime rolledUntil(IntervalType tier) {
+        Long epochSecond = watermarks.get(watermarkName(tier));
+        return epochSecond != null ? LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC) : null;
+    }
+
+    public static LocalDateTime floor(IntervalType tier, LocalDateTime time) {
+        return switch (tier) {
+            case FIVE_MINUTES -> time.truncatedTo(ChronoUnit.MINUTES).withMinute(time.getMinute() / 5 * 5);
+            case HOURLY -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAILY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEKLY -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            default -> throw new IllegalArgumentException("Unknown interval: " + tier);
+        };
+    }
+
+    private int rollUpRaw(IntervalType tier, LocalDateTime from, LocalDateTime to) {
+        SessionFactory sessionFactory = statsEntityManagerFactory.unwrap(SessionFactory.class);
+        BucketWriter writer = new BucketWriter(tier);
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try (ScrollableResults<Object[]> rows = session.createQuery(RAW_SCAN, Object[].class)
+                    .setParameter("intervalType", IntervalType.FIVE_MINUTES)
+                    .setParameter("from", from)
+                    .setParameter("to", to)
+                    .setFetchSize(FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    int views = ((Number) row[2]).intValue();
+                    int favorites = ((Number) row[3]).intValue();
+                    double rating = row[4] != null ? ((Number) row[4]).doubleValue() : 0.0;
+
+                    writer.bucketFor((Long) row[0], floor(tier, (LocalDateTime) row[1]))
+                        .add(views, views, views, favorites, favorites, favorites, rating, rating, rating);
+                }
+            } finally {
+                transaction.commit();
+            }
+        }
+
+        return writer.finish();
+    }
+
+    private int rollUpTier(IntervalType tier, IntervalType source, LocalDateTime from, LocalDateTime to) {
+        BucketWriter writer = new BucketWriter(tier);
+
+        // в транзакции драйвер отдаёт выборку порциями по fetch size, а не целиком
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.query(ROLLUP_SCAN, (RowCallbackHandler) rs ->
+                writer.bucketFor(rs.getLong(1), floor(tier, rs.getTimestamp(2).toLocalDateTime()))
+                    .add(rs.getInt(3), rs.getInt(4), rs.getInt(5),
+                         rs.getInt(6), rs.getInt(7), rs.getInt(8),
+                         rs.getDouble(9), rs.getDouble(10), rs.getDouble(11)),
+                source.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+            return writer.finish();
+        });
+    }
+
+    private void applyRetention(IntervalType tier) {
+        int days = retentionDays.get(tier);
+        if (days <= 0) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(days);
+        // не удаляем то, что ещё не свёрнуто в следующий уровень
+        IntervalType next = targetOf(tier);
+        if (next != null) {
+            LocalDateTime consumed = rolledUntil(next);
+            if (consumed == null) {
+                return;
+            }
+            cutoff = min(cutoff, consumed);
+        }
+
+        int deleted;
+        if (tier == IntervalType.FIVE_MINUTES) {
+            SessionFactory sessionFactory = statsEntityManagerFactory.unwrap(SessionFactory.class);
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                Transaction transaction = session.beginTransaction();
+                try {
+                    deleted = session.createMutationQuery(
+                            "DELETE FROM ListingStatSnapshot s WHERE s.intervalType = :intervalType AND s.time < :cutoff")
+                        .setParameter("intervalType", IntervalType.FIVE_MINUTES)
+                        .setParameter("cutoff", cutoff)
+                        .executeUpdate();
+                    transaction.commit();
+                } catch (RuntimeException e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+                    throw e;
+                }
+            }
+        } else {
+            deleted = jdbcTemplate.update("DELETE FROM listing_stat_rollup WHERE tier = ? AND bucket_start < ?",
+                tier.name(), Timestamp.valueOf(cutoff));
+        }
+
+        if (deleted > 0) {
+            logger.debug("Срок хранения {}: удалено {} строк старше {}", tier, deleted, cutoff);
+        }
+    }
+
+    private LocalDateTime earliestOf(IntervalType source) {
+        if (source == IntervalType.FIVE_MINUTES) {
+            SessionFactory sessionFactory = statsEntityManagerFactory.unwrap(SessionFactory.class);
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                return session.createQuery(
+                        "SELECT MIN(s.time) FROM ListingStatSnapshot s WHERE s.intervalType = :intervalType", LocalDateTime.class)
+                    .setParameter("intervalType", IntervalType.FIVE_MINUTES)
+                    .getSingleResult();
+            }
+        }
+
+        Timestamp earliest = jdbcTemplate.queryForObject(
+            "SELECT MIN(bucket_start) FROM listing_stat_rollup WHERE tier = ?", Timestamp.class, source.name());
+        return earliest != null ? earliest.toLocalDateTime() : null;
+    }
+
+    private static IntervalType sourceOf(IntervalType tier) {
+        return switch (tier) {
+            case HOURLY -> IntervalType.FIVE_MINUTES;
+            case DAILY -> IntervalType.HOURLY;
+            case WEEKLY -> IntervalType.DAILY;
+            default -> throw new IllegalArgumentException("Уровень не сворачивается: " + tier);
+        };
+    }
+
+    private static IntervalType targetOf(IntervalType tier) {
+        return switch (tier) {
+            case FIVE_MINUTES -> IntervalType.HOURLY;
+            case HOURLY -> IntervalType.DAILY;
+            case DAILY -> IntervalType.WEEKLY;
+            default -> null;
+        };
+    }
+
+    private static String columnOf(String metric) {
+        return switch (metric) {
+            case "views" -> "views";
+            case "favorites" -> "favorites";
+            case "rating" -> "rating";
+            default -> throw new IllegalArgumentException("Unknown metric: " + metric);
+        };
+    }
+
+    private static String watermarkName(IntervalType tier) {
+        return "listing-stat-rollup-" + tier.name();
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    // Копит окна одного уровня и пишет их пачками; строки источника упорядочены по (объявление, время)
+    private final class BucketWriter {
+
+        private final IntervalType tier;
+        private final List<Bucket> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        private Bucket current;
+        private int written;
+
+        BucketWriter(IntervalType tier) {
+            this.tier = tier;
+        }
+
+        Bucket bucketFor(long listingId, LocalDateTime start) {
+            if (current == null || !current.covers(listingId, start)) {
+                if (current != null) {
+                    append(current);
+                }
+                current = new Bucket(listingId, start);
+            }
+            return current;
+        }
+
+        int finish() {
+            if (current != null) {
+                append(current);
+                current = null;
+            }
+            flush();
+            return written;
+        }
+
+        private void append(Bucket bucket) {
+            batch.add(bucket);
+            if (batch.size() >= INSERT_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, b) -> {
+                ps.setLong(1, b.listingId);
+                ps.setString(2, tier.name());
+                ps.setTimestamp(3, Timestamp.valueOf(b.start));
+                ps.setInt(4, b.viewsMin);
+                ps.setInt(5, b.viewsMax);
+                ps.setInt(6, b.viewsLast);
+                ps.setInt(7, b.favoritesMin);
+                ps.setInt(8, b.favoritesMax);
+                ps.setInt(9, b.favoritesLast);
+                ps.setDouble(10, b.ratingMin);
+                ps.setDouble(11, b.ratingMax);
+                ps.setDouble(12, b.ratingLast);
+            });
+            written += batch.size();
+            batch.clear();
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.workswap.core.services.components;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.workswap.common.enums.IntervalType;
+import org.workswap.datasource.stats.model.ListingStatSnapshot;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+
+/**
+ * Запись снапшотов статистики объявлений одним проходом.
+ * Из центральной БД одним запросом читаются (id, просмотры, рейтинг, число избранного),
+ * из статистической — одним запросом id объявлений, у которых снапшот за окно уже есть.
+ * Новые снапшоты вставляются через stateless-сессию пачками JDBC, без контекста персистентности.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class ListingStatSnapshotWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingStatSnapshotWriter.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String PROJECTION =
+        "SELECT l.id, l.views, l.rating, " +
+        "(SELECT COUNT(u) FROM User u JOIN u.favoriteListings f WHERE f.id = l.id) " +
+        "FROM Listing l";
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager centralEntityManager;
+
+    @PersistenceUnit(unitName = "stats")
+    private EntityManagerFactory statsEntityManagerFactory;
+
+    // Возвращает число записанных снапшотов
+    @Transactional(readOnly = true)
+    public int writeSnapshots(IntervalType intervalType, LocalDateTime since) {
+        SessionFactory sessionFactory = statsEntityManagerFactory.unwrap(SessionFactory.class);
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(BATCH_SIZE);
+
+            // БД разные, поэтому anti-join собирается здесь: один запрос на интервал вместо count на объявление
+            Set<Long> alreadyTaken = new HashSet<>(session.createQuery(
+                    "SELECT DISTINCT s.listingId FROM ListingStatSnapshot s " +
+                    "WHERE s.intervalType = :intervalType AND s.time >= :since", Long.class)
+                .setParameter("intervalType", intervalType)
+                .setParameter("since", since)
+                .getResultList());
+
+            int written = 0;
+            Transaction transaction = session.beginTransaction();
+            try (Stream<Object[]> rows = centralEntityManager.createQuery(PROJECTION, Object[].class)
+                    .setHint("org.hibernate.fetchSize", BATCH_SIZE)
+                    .getResultStream()) {
+
+                Iterator<Object[]> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    Object[] row = iterator.next();
+                    Long listingId = (Long) row[0];
+                    if (alreadyTaken.contains(listingId)) {
+                        continue; // уже есть снапшот за этот период
+                    }
+
+                    session.insert(new ListingStatSnapshot(
+                        listingId,
+                        ((Number) row[1]).intValue(),
+                        ((Number) row[3]).intValue(),
+                        row[2] != null ? ((Number) row[2]).doubleValue() : 0.0,
+                        intervalType
+                    ));
+                    written++;
+                }
+
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+
+            logger.debug("Снапшотов {} записано: {}, пропущено: {}", intervalType, written, alreadyTaken.size());
+            return written;
+        }
+    }
+}
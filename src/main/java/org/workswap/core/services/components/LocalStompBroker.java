@@ -0,0 +1,264 @@
+package org.workswap.core.services.components;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Минимальный STOMP-брокер внутри JVM — замена RabbitMQ для режима broker relay
+ * при локальной проверке нескольких узлов на одной машине.
+ * Поддерживает CONNECT/STOMP, SUBSCRIBE, UNSUBSCRIBE, SEND, DISCONNECT и RECEIPT.
+ * /topic/** рассылается всем подписчикам, /queue/** — одному из них по кругу, как в RabbitMQ.
+ * Не для продакшена: нет подтверждений, транзакций, хранения и авторизации.
+ */
+public class LocalStompBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalStompBroker.class);
+
+    private final int port;
+
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> queueCursors = new ConcurrentHashMap<>();
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    private volatile ServerSocket serverSocket;
+
+    public LocalStompBroker(int port) {
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread.ofPlatform().name("local-stomp-broker").daemon().start(this::acceptLoop);
+        logger.info("Локальный STOMP-брокер слушает 127.0.0.1:{}", port);
+    }
+
+    public void stop() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Ошибка закрытия сокета брокера: {}", e.getMessage());
+        }
+        connections.forEach(Connection::close);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Connection connection = new Connection(serverSocket.accept());
+                connections.add(connection);
+                Thread.ofVirtual().name("local-stomp-connection").start(connection::run);
+            } catch (SocketException e) {
+                return; // сокет закрыт в stop()
+            } catch (IOException e) {
+                logger.warn("Ошибка приёма соединения: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void deliver(Frame send) {
+        String destination = send.headers.get("destination");
+        List<Subscription> targets = subscriptions.getOrDefault(destination, List.of());
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        if (destination.startsWith("/queue/")) {
+            int index = Math.floorMod(queueCursors.computeIfAbsent(destination, k -> new AtomicInteger()).getAndIncrement(), targets.size());
+            send(targets.get(index), send);
+        } else {
+            targets.forEach(subscription -> send(subscription, send));
+        }
+    }
+
+    private void send(Subscription subscription, Frame send) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        send.headers.forEach((name, value) -> {
+            if (!name.equals("receipt") && !name.equals("content-length")) {
+                headers.put(name, value);
+            }
+        });
+        headers.put("subscription", subscription.id);
+        headers.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+        subscription.connection.write(new Frame("MESSAGE", headers, send.body));
+    }
+
+    private record Subscription(Connection connection, String id, String destination) {}
+
+    private record Frame(String command, Map<String, String> headers, byte[] body) {}
+
+    private class Connection {
+
+        private final Socket socket;
+        private final Map<String, Subscription> byId = new ConcurrentHashMap<>();
+        private OutputStream out;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void run() {
+            try (InputStream in = new BufferedInputStream(socket.getInputStream())) {
+                out = socket.getOutputStream();
+                Frame frame;
+                while ((frame = read(in)) != null) {
+                    handle(frame);
+                }
+            } catch (IOException e) {
+                logger.debug("Соединение с брокером закрыто: {}", e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        private void handle(Frame frame) {
+            switch (frame.command) {
+                case "CONNECT", "STOMP" -> write(new Frame("CONNECTED",
+                    Map.of("version", "1.2", "heart-beat", "0,0", "server", "workswap-local"), new byte[0]));
+                case "SUBSCRIBE" -> {
+                    Subscription subscription = new Subscription(this, frame.headers.get("id"), frame.headers.get("destination"));
+                    byId.put(subscription.id, subscription);
+                    subscriptions.computeIfAbsent(subscription.destination, k -> new CopyOnWriteArrayList<>()).add(subscription);
+                }
+                case "UNSUBSCRIBE" -> unsubscribe(byId.remove(frame.headers.get("id")));
+                case "SEND" -> deliver(frame);
+                case "DISCONNECT" -> {
+                    receipt(frame);
+                    close();
+                    return;
+                }
+                default -> logger.debug("Команда {} не поддерживается локальным брокером", frame.command);
+            }
+            receipt(frame);
+        }
+
+        private void receipt(Frame frame) {
+            String receipt = frame.headers.get("receipt");
+            if (receipt != null) {
+                write(new Frame("RECEIPT", Map.of("receipt-id", receipt), new byte[0]));
+            }
+        }
+
+        private void unsubscribe(Subscription subscription) {
+            if (subscription == null) {
+                return;
+            }
+            List<Subscription> list = subscriptions.get(subscription.destination);
+            if (list != null) {
+                list.remove(subscription);
+                if (list.isEmpty()) {
+                    subscriptions.remove(subscription.destination, list);
+                }
+            }
+        }
+
+        synchronized void write(Frame frame) {
+            if (out == null || socket.isClosed()) {
+                return;
+            }
+            try {
+                StringBuilder head = new StringBuilder(frame.command).append('\n');
+                frame.headers.forEach((name, value) -> head.append(name).append(':').append(value).append('\n'));
+                if (frame.body.length > 0) {
+                    head.append("content-length:").append(frame.body.length).append('\n');
+                }
+                head.append('\n');
+                out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+                out.write(frame.body);
+                out.write(0);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            if (connections.remove(this)) {
+                new ArrayList<>(byId.values()).forEach(this::unsubscribe);
+                byId.clear();
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // уже закрыт
+            }
+        }
+
+        // null — конец потока
+        private Frame read(InputStream in) throws IOException {
+            String command;
+            do {
+                command = readLine(in);
+                if (command == null) {
+                    return null;
+                }
+            } while (command.isEmpty()); // пустые строки между кадрами — heart-beat
+
+            Map<String, String> headers = new LinkedHashMap<>();
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    // по спецификации при повторе заголовка действует первое значение
+                    headers.putIfAbsent(line.substring(0, colon), line.substring(colon + 1));
+                }
+            }
+
+            byte[] body;
+            String contentLength = headers.get("content-length");
+            if (contentLength != null) {
+                body = in.readNBytes(Integer.parseInt(contentLength.trim()));
+                if (in.read() == -1) { // завершающий NUL
+                    return null;
+                }
+            } else {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                int b;
+                while ((b = in.read()) != 0) {
+                    if (b == -1) {
+                        return null;
+                    }
+                    buffer.write(b);
+                }
+                body = buffer.toByteArray();
+            }
+
+            return new Frame(command, headers, body);
+        }
+
+        private String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b == -1) {
+                    return buffer.size() == 0 ? null : buffer.toString(StandardCharsets.UTF_8);
+                }
+                if (b != '\r') {
+                    buffer.write(b);
+                }
+            }
+            return buffer.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.workswap.core.services.components;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.workswap.core.objects.LocalizedText;
+
+/**
+ * Кэш локализованных текстов по сущности и языку.
+ * Тексты сущности лежат в общем слоте; инвалидация после коммита выбрасывает слот целиком,
+ * а загрузка, начатая до неё, кладёт результат в уже выброшенный слот и никому не видна.
+ * TTL ограничивает устаревание, если переводы поменялись на другом узле.
+ */
+public class LocalizedTextCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    public LocalizedTextCache(int maxEntries, Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public LocalizedText get(Long id, String lang, Supplier<LocalizedText> loader) {
+        if (id == null) {
+            return loader.get(); // несохранённая сущность
+        }
+
+        if (slots.size() >= maxEntries && !slots.containsKey(id)) {
+            slots.clear(); // грубое ограничение памяти; прогрев после сброса дешёвый
+        }
+        Slot slot = slots.computeIfAbsent(id, k -> new Slot());
+        long now = System.currentTimeMillis();
+
+        Entry entry = slot.texts.get(lang);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.text;
+        }
+
+        LocalizedText text = loader.get();
+        slot.texts.put(lang, new Entry(text, now + ttlMillis));
+        return text;
+    }
+
+    // До коммита параллельное чтение ещё видит старые переводы — сбрасывать раньше нельзя
+    public void invalidate(Long id) {
+        if (id != null) {
+            TransactionCallbacks.afterCommit(() -> slots.remove(id));
+        }
+    }
+
+    private static class Slot {
+        private final Map<String, Entry> texts = new ConcurrentHashMap<>();
+    }
+
+    private record Entry(LocalizedText text, long expiresAt) {}
+}
@@ -0,0 +1,50 @@
+package org.workswap.core.services.components;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Отметки прогресса фоновых задач статистической БД (последний обработанный id, конец последнего окна и т.п.).
+ * Модель статистики живёт во внешнем модуле, поэтому таблица создаётся здесь и без сущности.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class MaintenanceWatermarks {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MaintenanceWatermarks(@Qualifier("statsDataSource") DataSource statsDataSource) {
+        this.jdbcTemplate = new JdbcTemplate(statsDataSource);
+    }
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute(
+            "CREATE TABLE IF NOT EXISTS maintenance_watermark (" +
+            "name VARCHAR(64) PRIMARY KEY, last_id BIGINT NOT NULL)");
+    }
+
+    // null — задача ещё ни разу не отработала
+    public Long get(String name) {
+        List<Long> values = jdbcTemplate.queryForList(
+            "SELECT last_id FROM maintenance_watermark WHERE name = ?", Long.class, name);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    public void set(String name, long value) {
+        int updated = jdbcTemplate.update(
+            "UPDATE maintenance_watermark SET last_id = ? WHERE name = ?", value, name);
+        if (updated == 0) {
+            jdbcTemplate.update(
+                "INSERT INTO maintenance_watermark (name, last_id) VALUES (?, ?)", name, value);
+        }
+    }
+}
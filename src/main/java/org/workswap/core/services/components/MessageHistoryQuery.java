@@ -0,0 +1,69 @@
+package org.workswap.core.services.components;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.workswap.datasource.central.model.chat.Message;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * История сообщений чата страницами по ключу (chatId, sentAt, id).
+ * Страница — последние N сообщений перед заданным, без OFFSET и без загрузки всей истории.
+ */
+@Component
+@Profile("production")
+public class MessageHistoryQuery {
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    // Возвращает до limit сообщений, упорядоченных от старых к новым
+    @Transactional(readOnly = true)
+    public List<Message> findBefore(Long chatId, Long beforeMessageId, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT m FROM Message m WHERE m.chat.id = :chatId");
+
+        Object[] anchor = null;
+        if (beforeMessageId != null) {
+            List<Object[]> rows = entityManager.createQuery(
+                    "SELECT m.sentAt, m.id FROM Message m WHERE m.id = :id AND m.chat.id = :chatId", Object[].class)
+                .setParameter("id", beforeMessageId)
+                .setParameter("chatId", chatId)
+                .getResultList();
+            if (rows.isEmpty()) {
+                return Collections.emptyList(); // сообщение не из этого чата или уже удалено
+            }
+            anchor = rows.get(0);
+            jpql.append(" AND (m.sentAt < :sentAt OR (m.sentAt = :sentAt AND m.id < :id))");
+        }
+
+        jpql.append(" ORDER BY m.sentAt DESC, m.id DESC");
+
+        TypedQuery<Message> query = entityManager.createQuery(jpql.toString(), Message.class)
+            .setParameter("chatId", chatId)
+            .setMaxResults(limit);
+        if (anchor != null) {
+            query.setParameter("sentAt", anchor[0]);
+            query.setParameter("id", anchor[1]);
+        }
+
+        List<Message> messages = new ArrayList<>(query.getResultList());
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isParticipant(Long chatId, Long userId) {
+        return entityManager.createQuery(
+                "SELECT COUNT(p) FROM ChatParticipant p WHERE p.chat.id = :chatId AND p.user.id = :userId", Long.class)
+            .setParameter("chatId", chatId)
+            .setParameter("userId", userId)
+            .getSingleResult() > 0;
+    }
+}
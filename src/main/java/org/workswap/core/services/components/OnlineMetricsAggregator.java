@@ -0,0 +1,264 @@
+package org.workswap.core.services.components;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.workswap.common.dto.analytic.OnlineStatsMetricsDTO;
+import org.workswap.core.objects.RunningStats;
+import org.workswap.core.objects.ValueHistogram;
+import org.workswap.core.objects.stat.OnlineDayAggregate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Метрики онлайна за период одним проходом по снапшотам.
+ * Закрытые сутки считаются один раз и сохраняются частичными агрегатами (Уэлфорд, гистограмма квантилей,
+ * суммы по часам суток); период собирается слиянием сохранённых суток, и только неполные первые сутки
+ * и сегодняшний день читаются из снапшотов. Сутки сохраняются не сразу после полуночи, а спустя
+ * запас на запоздавшие снапшоты; до этого они тоже считаются из снапшотов.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class OnlineMetricsAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OnlineMetricsAggregator.class);
+
+    // один снапшот = 15 секунд
+    private static final int SNAPSHOT_SECONDS = 15;
+    private static final int FETCH_SIZE = 2000;
+
+    private final EntityManagerFactory statsEntityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration persistGrace;
+
+    public OnlineMetricsAggregator(
+        @Qualifier("statsEntityManagerFactory") EntityManagerFactory statsEntityManagerFactory,
+        @Qualifier("statsDataSource") DataSource statsDataSource,
+        @Value("${statistic.online.persist-grace-minutes:15}") long persistGraceMinutes
+    ) {
+        this.statsEntityManagerFactory = statsEntityManagerFactory;
+        this.jdbcTemplate = new JdbcTemplate(statsDataSource);
+        this.persistGrace = Duration.ofMinutes(persistGraceMinutes);
+    }
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute(
+            "CREATE TABLE IF NOT EXISTS online_stat_daily (" +
+            "stat_day DATE PRIMARY KEY, sample_count BIGINT NOT NULL, mean DOUBLE PRECISION NOT NULL, " +
+            "m2 DOUBLE PRECISION NOT NULL, value_sum DOUBLE PRECISION NOT NULL, " +
+            "min_value DOUBLE PRECISION NOT NULL, max_value DOUBLE PRECISION NOT NULL, " +
+            "hour_sums VARCHAR(1024) NOT NULL, hour_counts VARCHAR(512) NOT NULL, histogram TEXT NOT NULL)");
+    }
+
+    public OnlineStatsMetricsDTO getMetrics(LocalDateTime from, LocalDateTime to) {
+        List<OnlineDayAggregate> days = collectDays(from, to);
+
+        RunningStats total = new RunningStats();
+        ValueHistogram histogram = new ValueHistogram();
+        double[] hourSums = new double[24];
+        long[] hourCounts = new long[24];
+        double[] dayMeans = new double[days.size()];
+
+        for (int i = 0; i < days.size(); i++) {
+            OnlineDayAggregate day = days.get(i);
+            total.merge(day.getStats());
+            histogram.merge(day.getHistogram());
+            for (int hour = 0; hour < 24; hour++) {
+                hourSums[hour] += day.getHourSums()[hour];
+                hourCounts[hour] += day.getHourCounts()[hour];
+            }
+            dayMeans[i] = day.isEmpty() ? Double.NEGATIVE_INFINITY : day.getStats().getMean();
+        }
+
+        if (total.getCount() == 0) {
+            return new OnlineStatsMetricsDTO(); // или кинуть exception
+        }
+
+        // День пика (по среднему за сутки)
+        int peakDayIndex = argMax(dayMeans);
+        LocalDate peakDay = peakDayIndex >= 0 ? days.get(peakDayIndex).getDay() : null;
+
+        // Час пика (по среднему за час суток)
+        double[] hourMeans = new double[24];
+        for (int hour = 0; hour < 24; hour++) {
+            hourMeans[hour] = hourCounts[hour] > 0 ? hourSums[hour] / hourCounts[hour] : Double.NEGATIVE_INFINITY;
+        }
+        int peakHourIndex = argMax(hourMeans);
+        Integer peakHour = peakHourIndex >= 0 ? peakHourIndex : null;
+
+        // Сумма человеко-часов (онлайн * время)
+        int totalUserHours = (int) ((long) total.getSum() * SNAPSHOT_SECONDS / 3600);
+
+        return new OnlineStatsMetricsDTO(
+                (int) total.getMin(),
+                (int) total.getMax(),
+                total.getMean(),
+                histogram.quantile(0.5),
+                histogram.quantile(0.95),
+                total.getStdDev(),
+                totalUserHours,
+                peakDay,
+                peakHour
+        );
+    }
+
+    private List<OnlineDayAggregate> collectDays(LocalDateTime from, LocalDateTime to) {
+        List<OnlineDayAggregate> days = new ArrayList<>();
+
+        LocalDate today = to.toLocalDate();
+        LocalDate firstFullDay = from.toLocalTime().equals(LocalTime.MIDNIGHT)
+            ? from.toLocalDate()
+            : from.toLocalDate().plusDays(1);
+
+        // неполные первые сутки
+        LocalDateTime headEnd = min(firstFullDay.atStartOfDay(), to);
+        if (from.isBefore(headEnd)) {
+            days.add(aggregateRaw(from.toLocalDate(), from, headEnd));
+        }
+
+        // закрытые сутки — из сохранённых агрегатов, недостающие считаются и сохраняются;
+        // сутки, закончившиеся меньше запаса назад, ещё могут получить снапшоты и не сохраняются
+        LocalDateTime persistBefore = LocalDateTime.now().minus(persistGrace);
+        Map<LocalDate, OnlineDayAggregate> stored = loadDays(firstFullDay, today);
+        for (LocalDate day = firstFullDay; day.isBefore(today); day = day.plusDays(1)) {
+            OnlineDayAggregate aggregate = stored.get(day);
+            if (aggregate == null) {
+                LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+                aggregate = aggregateRaw(day, day.atStartOfDay(), dayEnd);
+                if (!dayEnd.isAfter(persistBefore)) {
+                    save(aggregate);
+                }
+            }
+            days.add(aggregate);
+        }
+
+        // сегодняшний день ещё идёт — только из снапшотов
+        LocalDateTime tailStart = max(today.atStartOfDay(), headEnd);
+        if (tailStart.isBefore(to)) {
+            days.add(aggregateRaw(today, tailStart, to));
+        }
+
+        return days;
+    }
+
+    private OnlineDayAggregate aggregateRaw(LocalDate day, LocalDateTime from, LocalDateTime to) {
+        OnlineDayAggregate aggregate = new OnlineDayAggregate(day);
+        SessionFactory sessionFactory = statsEntityManagerFactory.unwrap(SessionFactory.class);
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try (ScrollableResults<Object[]> rows = session.createQuery(
+                    "SELECT s.timestamp, s.online FROM OnlineStatSnapshot s " +
+                    "WHERE s.timestamp >= :from AND s.timestamp < :to", Object[].class)
+                    .setParameter("from", from)
+                    .setParameter("to", to)
+                    .setFetchSize(FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    aggregate.add((LocalDateTime) row[0], ((Number) row[1]).intValue());
+                }
+            } finally {
+                transaction.commit();
+            }
+        }
+
+        return aggregate;
+    }
+
+    private Map<LocalDate, OnlineDayAggregate> loadDays(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            return Map.of();
+        }
+
+        Map<LocalDate, OnlineDayAggregate> days = new HashMap<>();
+        jdbcTemplate.query(
+            "SELECT stat_day, sample_count, mean, m2, value_sum, min_value, max_value, hour_sums, hour_counts, histogram " +
+            "FROM online_stat_daily WHERE stat_day >= ? AND stat_day < ?",
+            (RowCallbackHandler) rs -> {
+                LocalDate day = rs.getDate(1).toLocalDate();
+                long count = rs.getLong(2);
+                RunningStats stats = count > 0
+                    ? new RunningStats(count, rs.getDouble(3), rs.getDouble(4), rs.getDouble(5), rs.getDouble(6), rs.getDouble(7))
+                    : new RunningStats();
+                days.put(day, new OnlineDayAggregate(
+                    day,
+                    stats,
+                    ValueHistogram.decode(rs.getString(10)),
+                    Arrays.stream(rs.getString(8).split(",")).mapToDouble(Double::parseDouble).toArray(),
+                    Arrays.stream(rs.getString(9).split(",")).mapToLong(Long::parseLong).toArray()));
+            },
+            Date.valueOf(from), Date.valueOf(to));
+        return days;
+    }
+
+    private void save(OnlineDayAggregate aggregate) {
+        RunningStats stats = aggregate.getStats();
+        boolean empty = aggregate.isEmpty();
+        try {
+            jdbcTemplate.update(
+                "INSERT INTO online_stat_daily (stat_day, sample_count, mean, m2, value_sum, min_value, max_value, " +
+                "hour_sums, hour_counts, histogram) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                Date.valueOf(aggregate.getDay()),
+                stats.getCount(),
+                stats.getMean(),
+                stats.getM2(),
+                stats.getSum(),
+                empty ? 0.0 : stats.getMin(),
+                empty ? 0.0 : stats.getMax(),
+                Arrays.stream(aggregate.getHourSums()).mapToObj(Double::toString).collect(Collectors.joining(",")),
+                Arrays.stream(aggregate.getHourCounts()).mapToObj(Long::toString).collect(Collectors.joining(",")),
+                aggregate.getHistogram().encode());
+        } catch (DuplicateKeyException e) {
+            // параллельный запрос уже сохранил эти сутки
+            logger.debug("Агрегат онлайна за {} уже сохранён", aggregate.getDay());
+        }
+    }
+
+    private static int argMax(double[] values) {
+        int best = -1;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != Double.NEGATIVE_INFINITY && (best < 0 || values[i] > values[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
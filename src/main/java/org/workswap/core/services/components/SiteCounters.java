@@ -0,0 +1,135 @@
+package org.workswap.core.services.components;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Счётчики главной страницы: пользователи, активные объявления, просмотры, опубликованные резюме.
+ * Командные сервисы и учёт просмотров сдвигают их после коммита, а периодическая сверка
+ * перезаписывает их результатами COUNT/SUM — так исправляются изменения, прошедшие мимо сервисов,
+ * изменения с других узлов и гонки сверки с дельтами. Чтение — из памяти.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class SiteCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteCounters.class);
+
+    public record Snapshot(long usersCount, long activeListingsCount, long totalViews, long resumesCount) {}
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final long reconcileSeconds;
+
+    private final AtomicLong users = new AtomicLong();
+    private final AtomicLong activeListings = new AtomicLong();
+    private final AtomicLong totalViews = new AtomicLong();
+    private final AtomicLong resumes = new AtomicLong();
+
+    private volatile boolean ready = false;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "site-counters");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SiteCounters(
+        PlatformTransactionManager transactionManager,
+        @Value("${site.counters.reconcile-seconds:300}") long reconcileSeconds
+    ) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.reconcileSeconds = reconcileSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::safeReconcile, 0, reconcileSeconds, TimeUnit.SECONDS);
+    }
+
+    public Snapshot get() {
+        if (!ready) {
+            reconcile(); // до первой сверки отдали бы нули
+        }
+        return new Snapshot(users.get(), activeListings.get(), totalViews.get(), resumes.get());
+    }
+
+    public void userCreated() {
+        TransactionCallbacks.afterCommit(users::incrementAndGet);
+    }
+
+    public void userDeleted() {
+        TransactionCallbacks.afterCommit(users::decrementAndGet);
+    }
+
+    public void listingActivityChanged(boolean wasActive, boolean active) {
+        if (wasActive != active) {
+            TransactionCallbacks.afterCommit(() -> activeListings.addAndGet(active ? 1 : -1));
+        }
+    }
+
+    public void listingDeleted(boolean wasActive, long views) {
+        TransactionCallbacks.afterCommit(() -> {
+            if (wasActive) {
+                activeListings.decrementAndGet();
+            }
+            totalViews.addAndGet(-views);
+        });
+    }
+
+    public void viewAdded() {
+        TransactionCallbacks.afterCommit(totalViews::incrementAndGet);
+    }
+
+    public synchronized void reconcile() {
+        Snapshot actual = transactionTemplate.execute(status -> new Snapshot(
+            entityManager.createQuery("SELECT COUNT(u) FROM User u", Long.class).getSingleResult(),
+            entityManager.createQuery("SELECT COUNT(l) FROM Listing l WHERE l.active = true", Long.class).getSingleResult(),
+            entityManager.createQuery("SELECT COALESCE(SUM(l.views), 0L) FROM Listing l", Long.class).getSingleResult(),
+            entityManager.createQuery("SELECT COUNT(r) FROM Resume r WHERE r.published = true", Long.class).getSingleResult()
+        ));
+
+        if (ready && (users.get() != actual.usersCount() || activeListings.get() != actual.activeListingsCount()
+                || totalViews.get() != actual.totalViews() || resumes.get() != actual.resumesCount())) {
+            logger.debug("Счётчики сайта разошлись с БД, исправляем: {}", actual);
+        }
+
+        users.set(actual.usersCount());
+        activeListings.set(actual.activeListingsCount());
+        totalViews.set(actual.totalViews());
+        resumes.set(actual.resumesCount());
+        ready = true;
+    }
+
+    private void safeReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось сверить счётчики сайта: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,143 @@
+package org.workswap.core.services.components;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Потоковое удаление повторяющихся снапшотов статистики объявлений.
+ * Снапшоты читаются курсором вперёд в порядке (объявление, интервал, id), каждый сравнивается
+ * с предыдущим той же серии: если просмотры, избранное и рейтинг не изменились, снапшот лишний.
+ * Обрабатываются только строки новее сохранённой отметки; опорой служит последний уже обработанный
+ * снапшот серии, и ищется он только для объявлений с новыми строками, а не по всей истории.
+ * Память — O(размер пачки удаления).
+ */
+@Component
+@Profile({"production", "statistic"})
+public class StatSnapshotCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatSnapshotCompactor.class);
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private static final String WATERMARK_NAME = "listing-stat-compaction";
+
+    private static final String SCAN =
+        "SELECT s.id, s.listingId, s.intervalType, s.views, s.favorites, s.rating " +
+        "FROM ListingStatSnapshot s " +
+        "WHERE s.id <= :upper AND (s.id > :watermark OR s.id IN (" +
+            "SELECT MAX(p.id) FROM ListingStatSnapshot p WHERE p.id <= :watermark " +
+            "AND p.listingId IN (SELECT n.listingId FROM ListingStatSnapshot n WHERE n.id > :watermark AND n.id <= :upper) " +
+            "GROUP BY p.listingId, p.intervalType)) " +
+        "ORDER BY s.listingId, s.intervalType, s.id";
+
+    // Серия и значения снапшота; совпадение целиком означает повтор
+    private record Values(Object listingId, Object intervalType, Object views, Object favorites, Object rating) {}
+
+    private final EntityManagerFactory statsEntityManagerFactory;
+    private final MaintenanceWatermarks watermarks;
+
+    public StatSnapshotCompactor(
+        @Qualifier("statsEntityManagerFactory") EntityManagerFactory statsEntityManagerFactory,
+        MaintenanceWatermarks watermarks
+    ) {
+        this.statsEntityManagerFactory = statsEntityManagerFactory;
+        this.watermarks = watermarks;
+    }
+
+    // Возвращает число удалённых снапшотов
+    public int compact() {
+        SessionFactory sessionFactory = statsEntityManagerFactory.unwrap(SessionFactory.class);
+        Long saved = watermarks.get(WATERMARK_NAME);
+        long watermark = saved != null ? saved : 0L;
+
+        try (StatelessSession reader = sessionFactory.openStatelessSession();
+             StatelessSession writer = sessionFactory.openStatelessSession()) {
+
+            // строки, вставленные во время прохода, достанутся следующему запуску
+            Long upper = reader.createQuery("SELECT MAX(s.id) FROM ListingStatSnapshot s", Long.class).getSingleResult();
+            if (upper == null || upper <= watermark) {
+                logger.debug("Новых снапшотов для сжатия нет");
+                return 0;
+            }
+
+            int deleted = 0;
+            long scanned = 0;
+            List<Long> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+
+            // курсор держим в транзакции: иначе драйвер может выгрузить всю выборку в память
+            Transaction readTransaction = reader.beginTransaction();
+            try (ScrollableResults<Object[]> rows = reader.createQuery(SCAN, Object[].class)
+                    .setParameter("upper", upper)
+                    .setParameter("watermark", watermark)
+                    .setFetchSize(FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+
+                Values previous = null;
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    Long id = (Long) row[0];
+                    Values current = new Values(row[1], row[2], row[3], row[4], row[5]);
+                    scanned++;
+
+                    if (current.equals(previous)) {
+                        batch.add(id); // повтор предыдущего снапшота серии, первый из одинаковых остаётся
+                        if (batch.size() >= DELETE_BATCH_SIZE) {
+                            deleted += delete(writer, batch);
+                        }
+                        continue;
+                    }
+                    previous = current;
+                }
+            } finally {
+                readTransaction.commit();
+            }
+
+            deleted += delete(writer, batch);
+            watermarks.set(WATERMARK_NAME, upper);
+
+            logger.debug("Сжатие статистики: просмотрено {}, удалено {}, отметка {}", scanned, deleted, upper);
+            return deleted;
+        }
+    }
+
+    private int delete(StatelessSession writer, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // id внутри серии возрастают, поэтому пачка — узкий диапазон индекса по id
+        ids.sort(null);
+        Transaction transaction = writer.beginTransaction();
+        try {
+            int deleted = writer.createMutationQuery(
+                    "DELETE FROM ListingStatSnapshot s WHERE s.id BETWEEN :from AND :to AND s.id IN :ids")
+                .setParameter("from", ids.get(0))
+                .setParameter("to", ids.get(ids.size() - 1))
+                .setParameterList("ids", ids)
+                .executeUpdate();
+            transaction.commit();
+            ids.clear();
+            return deleted;
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+}
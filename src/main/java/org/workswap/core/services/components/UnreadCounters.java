@@ -0,0 +1,168 @@
+package org.workswap.core.services.components;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.workswap.core.objects.chat.ChatsDeletedEvent;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Счётчики непрочитанных сообщений по паре (чат, получатель).
+ * Счётчики пользователя поднимаются одним сгруппированным COUNT при первом обращении,
+ * дальше поддерживаются инкрементально после коммита отправки и прочтения.
+ * Через TTL счётчики пользователя перечитываются из БД, чтобы возможный дрейф не копился.
+ * На время загрузки в кэше лежит заготовка: изменение, пришедшее во время COUNT,
+ * помечает её устаревшей, и результат отдаётся без сохранения.
+ */
+@Component
+@Profile("production")
+public class UnreadCounters {
+
+    private static final String UNREAD_BY_CHAT_QUERY =
+        "SELECT m.chat.id, COUNT(m) FROM Message m " +
+        "WHERE m.receiver.id = :userId AND m.read = false " +
+        "GROUP BY m.chat.id";
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    private final long ttlMillis;
+    private final Map<Long, UserCounters> users = new ConcurrentHashMap<>();
+
+    public UnreadCounters(@Value("${chat.unread.ttl-seconds:600}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    @Transactional(readOnly = true)
+    public long get(Long chatId, Long userId) {
+        AtomicLong counter = load(userId).counts.get(chatId);
+        return counter != null ? Math.max(counter.get(), 0) : 0;
+    }
+
+    // Все ненулевые счётчики пользователя: chatId -> количество
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getAll(Long userId) {
+        Map<Long, Long> result = new ConcurrentHashMap<>();
+        load(userId).counts.forEach((chatId, counter) -> {
+            long value = counter.get();
+            if (value > 0) {
+                result.put(chatId, value);
+            }
+        });
+        return result;
+    }
+
+    public void messageSent(Long chatId, Long receiverId) {
+        if (chatId == null || receiverId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            UserCounters counters = users.get(receiverId);
+            // незагруженному пользователю инкремент не нужен — его учтёт холодный COUNT
+            if (counters != null) {
+                counters.apply(counts -> counts.computeIfAbsent(chatId, k -> new AtomicLong()).incrementAndGet());
+            }
+        });
+    }
+
+    public void chatRead(Long chatId, Long readerId) {
+        if (chatId == null || readerId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            UserCounters counters = users.get(readerId);
+            if (counters != null) {
+                counters.apply(counts -> counts.remove(chatId));
+            }
+        });
+    }
+
+    @EventListener
+    public void onChatsDeleted(ChatsDeletedEvent event) {
+        List<Long> chatIds = event.getChatIds();
+        TransactionCallbacks.afterCommit(() -> users.values().forEach(counters ->
+            counters.apply(counts -> chatIds.forEach(counts::remove))));
+    }
+
+    public void evictUser(Long userId) {
+        users.remove(userId);
+    }
+
+    private UserCounters load(Long userId) {
+        long now = System.currentTimeMillis();
+        UserCounters counters = users.get(userId);
+        if (counters != null && counters.isLoaded() && counters.loadedAt + ttlMillis > now) {
+            return counters;
+        }
+
+        // заготовка регистрируется до COUNT, чтобы изменения во время загрузки её не миновали
+        UserCounters loading = new UserCounters(now);
+        users.put(userId, loading);
+
+        List<Object[]> rows;
+        try {
+            rows = entityManager.createQuery(UNREAD_BY_CHAT_QUERY, Object[].class)
+                .setParameter("userId", userId)
+                .getResultList();
+        } catch (RuntimeException e) {
+            users.remove(userId, loading);
+            throw e;
+        }
+
+        if (loading.fill(rows)) {
+            return loading;
+        }
+
+        // во время загрузки пришло изменение: COUNT мог его не увидеть — отдаём, но не кэшируем
+        users.remove(userId, loading);
+        UserCounters uncached = new UserCounters(now);
+        uncached.fill(rows);
+        return uncached;
+    }
+
+    private static class UserCounters {
+        private final long loadedAt;
+        private final Map<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+
+        private boolean loaded = false;
+        private boolean stale = false;
+
+        UserCounters(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        synchronized boolean isLoaded() {
+            return loaded;
+        }
+
+        // false — пока шла загрузка, пришло изменение, и заготовка в кэш не годится
+        synchronized boolean fill(List<Object[]> rows) {
+            if (stale) {
+                return false;
+            }
+            for (Object[] row : rows) {
+                counts.put((Long) row[0], new AtomicLong((Long) row[1]));
+            }
+            loaded = true;
+            return true;
+        }
+
+        synchronized void apply(Consumer<Map<Long, AtomicLong>> change) {
+            if (!loaded) {
+                stale = true;
+                return;
+            }
+            change.accept(counts);
+        }
+    }
+}
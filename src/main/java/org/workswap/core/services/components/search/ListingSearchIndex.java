@@ -0,0 +1,446 @@
+package org.workswap.core.services.components.search;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.workswap.core.services.components.TransactionCallbacks;
+import org.workswap.core.services.components.search.SearchSegmentFile.StoredDocument;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Полнотекстовый индекс по переводам активных объявлений (заголовок + описание).
+ * Отдельный инвертированный индекс на каждый язык, ранжирование BM25,
+ * префиксный поиск по последнему слову запроса и допуск опечаток.
+ * Проанализированные документы сохраняются в файл сегмента вместе с контрольной суммой
+ * исходного текста: после рестарта заново анализируются только переводы, чья сумма
+ * не совпала с БД. Сегмент пишет один фоновый поток, не поток запроса.
+ */
+@Component
+@Profile({"production", "statistic"})
+public class ListingSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingSearchIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_BOOST = 2;
+
+    private static final double PREFIX_WEIGHT = 0.8;
+    private static final double TYPO_WEIGHT = 0.6;
+    private static final int MAX_EXPANSIONS = 30;
+    private static final int FLUSH_AFTER_CHANGES = 500;
+
+    private static final String DOCUMENTS_QUERY =
+        "SELECT l.id, KEY(tr), tr.title, tr.description FROM Listing l JOIN l.translations tr " +
+        "WHERE l.active = true AND l.temporary = false";
+
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
+    @Value("${search.index.path:index/listings.seg}")
+    private String segmentPath;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, LanguageIndex> indexes = new HashMap<>();
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "search-segment-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void init() {
+        Path path = Path.of(segmentPath);
+        Map<DocumentKey, StoredDocument> stored = new HashMap<>();
+
+        if (Files.exists(path)) {
+            try {
+                SearchSegmentFile.read(path).forEach(doc -> stored.put(new DocumentKey(doc.listingId(), doc.lang()), doc));
+            } catch (IOException | RuntimeException e) {
+                stored.clear();
+                logger.warn("Не удалось прочитать сегмент поиска {}: {}", path, e.getMessage());
+            }
+        }
+
+        load(stored);
+    }
+
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        load(Map.of());
+    }
+
+    // Документ из сегмента берётся как есть, если контрольная сумма текста совпала с БД
+    private void load(Map<DocumentKey, StoredDocument> stored) {
+        List<StoredDocument> documents = new ArrayList<>();
+        AtomicInteger analyzed = new AtomicInteger();
+
+        entityManager.createQuery(DOCUMENTS_QUERY, Object[].class)
+            .getResultStream()
+            .forEach(row -> {
+                Long listingId = (Long) row[0];
+                String lang = (String) row[1];
+                String title = (String) row[2];
+                String description = (String) row[3];
+
+                StoredDocument cached = stored.get(new DocumentKey(listingId, lang));
+                if (cached != null && cached.checksum() == checksum(title, description)) {
+                    documents.add(cached);
+                    return;
+                }
+
+                analyzed.incrementAndGet();
+                StoredDocument doc = analyze(listingId, lang, title, description);
+                if (doc != null) {
+                    documents.add(doc);
+                }
+            });
+
+        replaceAll(documents);
+        logger.info("Поисковый индекс загружен: {} документов, из них заново проанализировано {}",
+            documents.size(), analyzed.get());
+
+        if (analyzed.get() > 0 || documents.size() != stored.size()) {
+            scheduleFlush();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Переиндексирует переводы объявления после коммита текущей транзакции
+    public void refresh(Long listingId) {
+        if (listingId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> reload(listingId));
+    }
+
+    public void remove(Long listingId) {
+        if (listingId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                indexes.values().forEach(index -> index.remove(listingId));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            onChange();
+        });
+    }
+
+    /**
+     * Ищет объявления по запросу в указанных языках.
+     * @return id всех найденных объявлений по убыванию релевантности
+     */
+    public List<Long> search(String query, List<String> languages) {
+        Map<Long, Double> best = new HashMap<>();
+        List<String> tokens = TextAnalyzer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            for (String lang : languages) {
+                LanguageIndex index = indexes.get(lang);
+                if (index == null) {
+                    continue;
+                }
+                index.score(tokens, lang).forEach((id, score) -> best.merge(id, score, Math::max));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return best.entrySet().stream()
+            .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // Файл сегмента пишет один поток за раз; изменения, пришедшие во время записи, попадут в следующую
+    public void flush() {
+        if (!ready) {
+            return;
+        }
+
+        synchronized (flushLock) {
+            int captured = pendingChanges.getAndSet(0);
+
+            List<StoredDocument> documents = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                indexes.forEach((lang, index) -> index.docs.forEach((id, doc) ->
+                    documents.add(new StoredDocument(id, lang, doc.length(), doc.checksum(), doc.terms()))));
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            try {
+                SearchSegmentFile.write(Path.of(segmentPath), documents);
+                logger.debug("Сегмент поиска сохранён: {} документов", documents.size());
+            } catch (IOException e) {
+                pendingChanges.addAndGet(captured);
+                logger.error("Не удалось сохранить сегмент поиска: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void reload(Long listingId) {
+        List<StoredDocument> documents = new ArrayList<>();
+        entityManager.createQuery(DOCUMENTS_QUERY + " AND l.id = :id", Object[].class)
+            .setParameter("id", listingId)
+            .getResultList()
+            .forEach(row -> {
+                StoredDocument doc = analyze((Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+                if (doc != null) {
+                    documents.add(doc);
+                }
+            });
+
+        lock.writeLock().lock();
+        try {
+            indexes.values().forEach(index -> index.remove(listingId));
+            documents.forEach(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        onChange();
+    }
+
+    private void onChange() {
+        if (pendingChanges.incrementAndGet() >= FLUSH_AFTER_CHANGES) {
+            scheduleFlush();
+        }
+    }
+
+    // Не больше одной запланированной записи: остальные изменения её дождутся
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flushExecutor.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        } catch (RejectedExecutionException e) {
+            flushScheduled.set(false); // приложение останавливается, сегмент запишет shutdown
+        }
+    }
+
+    private void replaceAll(List<StoredDocument> documents) {
+        lock.writeLock().lock();
+        try {
+            indexes.clear();
+            documents.forEach(this::addDocument);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addDocument(StoredDocument doc) {
+        indexes.computeIfAbsent(doc.lang(), k -> new LanguageIndex()).add(doc);
+    }
+
+    private StoredDocument analyze(Long listingId, String lang, String title, String description) {
+        if (!TextAnalyzer.supports(lang)) {
+            return null;
+        }
+
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        int length = 0;
+
+        for (String term : TextAnalyzer.analyze(title, lang)) {
+            terms.merge(term, TITLE_BOOST, Integer::sum);
+            length += TITLE_BOOST;
+        }
+        for (String term : TextAnalyzer.analyze(description, lang)) {
+            terms.merge(term, 1, Integer::sum);
+            length++;
+        }
+
+        return terms.isEmpty() ? null : new StoredDocument(listingId, lang, length, checksum(title, description), terms);
+    }
+
+    // CRC32C заголовка в старших 32 битах, описания — в младших
+    private static long checksum(String title, String description) {
+        return (crc(title) << 32) | crc(description);
+    }
+
+    private static long crc(String text) {
+        CRC32C crc = new CRC32C();
+        if (text != null) {
+            crc.update(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return crc.getValue();
+    }
+
+    private record DocumentKey(long listingId, String lang) {}
+
+    private record Doc(int length, long checksum, Map<String, Integer> terms) {}
+
+    // Инвертированный индекс одного языка; доступ под общим lock
+    private static class LanguageIndex {
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, Doc> docs = new HashMap<>();
+        private long totalLength = 0;
+
+        void add(StoredDocument stored) {
+            remove(stored.listingId());
+            docs.put(stored.listingId(), new Doc(stored.length(), stored.checksum(), stored.terms()));
+            totalLength += stored.length();
+            stored.terms().forEach((term, tf) ->
+                postings.computeIfAbsent(term, k -> new HashMap<>()).put(stored.listingId(), tf));
+        }
+
+        void remove(long listingId) {
+            Doc doc = docs.remove(listingId);
+            if (doc == null) {
+                return;
+            }
+            totalLength -= doc.length();
+            for (String term : doc.terms().keySet()) {
+                Map<Long, Integer> list = postings.get(term);
+                if (list != null) {
+                    list.remove(listingId);
+                    if (list.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        Map<Long, Double> score(List<String> tokens, String lang) {
+            Map<Long, Double> scores = new HashMap<>();
+            if (docs.isEmpty()) {
+                return scores;
+            }
+            double avgLength = (double) totalLength / docs.size();
+
+            for (int i = 0; i < tokens.size(); i++) {
+                String raw = tokens.get(i);
+                String stem = TextAnalyzer.stem(raw, lang);
+                boolean exact = postings.containsKey(stem);
+
+                if (exact) {
+                    addTerm(scores, stem, 1.0, avgLength);
+                }
+
+                // последнее слово пользователь может ещё не допечатать
+                if (i == tokens.size() - 1) {
+                    int expanded = 0;
+                    for (String term : postings.subMap(raw, true, raw + Character.MAX_VALUE, false).keySet()) {
+                        if (term.equals(stem)) continue;
+                        addTerm(scores, term, PREFIX_WEIGHT, avgLength);
+                        if (++expanded >= MAX_EXPANSIONS) break;
+                    }
+                }
+
+                if (!exact && stem.length() >= 4) {
+                    int maxDistance = stem.length() >= 8 ? 2 : 1;
+                    String first = stem.substring(0, 1);
+                    int expanded = 0;
+                    for (String term : postings.subMap(first, true, first + Character.MAX_VALUE, false).keySet()) {
+                        if (Math.abs(term.length() - stem.length()) > maxDistance) continue;
+                        if (editDistance(stem, term, maxDistance) <= maxDistance) {
+                            addTerm(scores, term, TYPO_WEIGHT, avgLength);
+                            if (++expanded >= MAX_EXPANSIONS) break;
+                        }
+                    }
+                }
+            }
+
+            return scores;
+        }
+
+        private void addTerm(Map<Long, Double> scores, String term, double weight, double avgLength) {
+            Map<Long, Integer> list = postings.get(term);
+            if (list == null) {
+                return;
+            }
+            double idf = Math.log(1 + (docs.size() - list.size() + 0.5) / (list.size() + 0.5));
+            list.forEach((listingId, tf) -> {
+                int length = docs.get(listingId).length();
+                double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+                scores.merge(listingId, weight * idf * norm, Double::sum);
+            });
+        }
+
+        // Левенштейн с отсечением: как только строка матрицы целиком больше max, дальше не считаем
+        private static int editDistance(String a, String b, int max) {
+            int[] prev = new int[b.length() + 1];
+            int[] curr = new int[b.length() + 1];
+            for (int j = 0; j <= b.length(); j++) {
+                prev[j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                curr[0] = i;
+                int rowMin = curr[0];
+                for (int j = 1; j <= b.length(); j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                    rowMin = Math.min(rowMin, curr[j]);
+                }
+                if (rowMin > max) {
+                    return max + 1;
+                }
+                int[] tmp = prev;
+                prev = curr;
+                curr = tmp;
+            }
+            return prev[b.length()];
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.workswap.core.services.components.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Файл сегмента поискового индекса. Хранит уже проанализированные документы
+ * (объявление, язык, контрольная сумма исходного текста, частоты термов), по которым
+ * инвертированный индекс собирается без повторного анализа текста.
+ * Пишется во временный файл и атомарно подменяет старый, читается через mmap.
+ */
+public class SearchSegmentFile {
+
+    private static final int MAGIC = 0x57534958; // "WSIX"
+    private static final int VERSION = 2;
+
+    public record StoredDocument(long listingId, String lang, int length, long checksum, Map<String, Integer> terms) {}
+
+    public static void write(Path path, List<StoredDocument> documents) throws IOException {
+        List<byte[]> langs = new ArrayList<>(documents.size());
+        List<List<byte[]>> termBytes = new ArrayList<>(documents.size());
+
+        long size = 12; // magic + version + количество документов
+        for (StoredDocument doc : documents) {
+            byte[] lang = doc.lang().getBytes(StandardCharsets.UTF_8);
+            langs.add(lang);
+            size += 8 + 2 + lang.length + 4 + 8 + 4;
+
+            List<byte[]> terms = new ArrayList<>(doc.terms().size());
+            for (String term : doc.terms().keySet()) {
+                byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+                terms.add(bytes);
+                size += 2 + bytes.length + 4;
+            }
+            termBytes.add(terms);
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(documents.size());
+
+            for (int i = 0; i < documents.size(); i++) {
+                StoredDocument doc = documents.get(i);
+                buffer.putLong(doc.listingId());
+                putBytes(buffer, langs.get(i));
+                buffer.putInt(doc.length());
+                buffer.putLong(doc.checksum());
+                buffer.putInt(doc.terms().size());
+
+                int t = 0;
+                for (Integer tf : doc.terms().values()) {
+                    putBytes(buffer, termBytes.get(i).get(t++));
+                    buffer.putInt(tf);
+                }
+            }
+            buffer.force();
+        }
+
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static List<StoredDocument> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported search segment format: " + path);
+            }
+
+            int count = buffer.getInt();
+            List<StoredDocument> documents = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                long listingId = buffer.getLong();
+                String lang = getString(buffer);
+                int length = buffer.getInt();
+                long checksum = buffer.getLong();
+                int termCount = buffer.getInt();
+
+                Map<String, Integer> terms = new LinkedHashMap<>(termCount * 2);
+                for (int t = 0; t < termCount; t++) {
+                    String term = getString(buffer);
+                    terms.put(term, buffer.getInt());
+                }
+                documents.add(new StoredDocument(listingId, lang, length, checksum, terms));
+            }
+
+            return documents;
+        }
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package org.workswap.core.services.components.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Токенизация и лёгкий стемминг по суффиксам для языков из LanguageUtils.SUPPORTED_LANGUAGES.
+ * Это не полноценный морфологический анализ: достаточно, чтобы "ремонт"/"ремонта"/"ремонтом"
+ * и "cleaning"/"cleaned" попадали в один терм.
+ */
+public class TextAnalyzer {
+
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private static final Map<String, String[]> SUFFIXES = Map.of(
+        "ru", sortedByLength(
+            "ениями", "ениях", "ением", "ения", "ение", "ости", "ость", "иями", "ями", "ами",
+            "ого", "его", "ому", "ему", "ыми", "ими", "ых", "их", "ой", "ей", "ий", "ый", "ая", "яя",
+            "ое", "ее", "ом", "ем", "ам", "ям", "ах", "ях", "ов", "ев", "ть", "а", "я", "о", "е", "ы", "и", "у", "ю", "ь"),
+        "fi", sortedByLength(
+            "issa", "issä", "ista", "istä", "iksi", "ssa", "ssä", "sta", "stä", "lla", "llä", "lta", "ltä",
+            "lle", "ksi", "ine", "na", "nä", "ta", "tä", "an", "en", "in", "on", "un", "yn", "n", "t", "a", "ä"),
+        "en", sortedByLength(
+            "ations", "ation", "ings", "ing", "ness", "ment", "ies", "ied", "ers", "er", "ed", "es", "ly", "s"),
+        "it", sortedByLength(
+            "azioni", "azione", "mente", "ando", "endo", "ato", "ata", "ati", "ate", "ito", "ita", "iti", "ite",
+            "are", "ere", "ire", "i", "e", "a", "o")
+    );
+
+    // Нормализованные токены без стемминга
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        StringBuilder current = new StringBuilder();
+
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+
+        return tokens;
+    }
+
+    public static String stem(String token, String lang) {
+        String[] suffixes = SUFFIXES.get(lang);
+        if (suffixes == null) {
+            return token;
+        }
+        for (String suffix : suffixes) {
+            if (token.endsWith(suffix) && token.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                return token.substring(0, token.length() - suffix.length());
+            }
+        }
+        return token;
+    }
+
+    public static List<String> analyze(String text, String lang) {
+        List<String> tokens = tokenize(text);
+        tokens.replaceAll(token -> stem(token, lang));
+        return tokens;
+    }
+
+    public static boolean supports(String lang) {
+        return SUFFIXES.containsKey(lang);
+    }
+
+    private static String[] sortedByLength(String... suffixes) {
+        String[] sorted = suffixes.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(String::length).reversed());
+        return sorted;
+    }
+}
@@ -1,13 +1,13 @@
 package org.workswap.core.services.impl;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,9 +15,12 @@ import org.workswap.common.dto.CategoryDTO;
 import org.workswap.common.enums.SearchModelParamType;
 import org.workswap.datasource.central.model.listingModels.Category;
 import org.workswap.datasource.central.repository.CategoryRepository;
+import org.workswap.core.objects.CategoryNode;
+import org.workswap.core.objects.CategoryTreeSnapshot;
 import org.workswap.core.services.CategoryService;
 import org.workswap.core.services.LocalizationService;
 import org.workswap.core.services.components.ServiceUtils;
+import org.workswap.core.services.components.TransactionCallbacks;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -27,10 +30,15 @@ import lombok.RequiredArgsConstructor;
 @Profile({"production", "statistic"})
 public class CategoryServiceImpl implements CategoryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CategoryService.class);
+
     private final CategoryRepository categoryRepository;
     private final ServiceUtils serviceUtils;
     private final LocalizationService localizationService;
 
+    // Поколение растёт с каждой инвалидацией; снимок кладётся в кэш только в том поколении, в котором начали сборку
+    private final AtomicReference<TreeState> treeState = new AtomicReference<>(new TreeState(0, null));
+
     private Category findCategoryFromRepostirory(String param, SearchModelParamType paramType) {
         switch (paramType) {
             case ID:
@@ -54,11 +62,14 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     public void save(Category category) {
         categoryRepository.save(category);
+        invalidateTree();
     }
     
     @Override
     public Category saveAndReturn(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        invalidateTree();
+        return saved;
     }
 
     @Override
@@ -94,21 +105,48 @@ public class CategoryServiceImpl implements CategoryService {
             }
         }
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        invalidateTree();
+        return saved;
     }
 
     @Override
-    @Transactional(readOnly = true)
+    public CategoryTreeSnapshot getTreeSnapshot() {
+        TreeState state = treeState.get();
+        if (state.snapshot() != null) {
+            return state.snapshot();
+        }
+
+        synchronized (treeState) {
+            state = treeState.get();
+            if (state.snapshot() != null) {
+                return state.snapshot();
+            }
+
+            CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(state.generation(), categoryRepository.findAll()); // 1 запрос
+            // если во время сборки прошла инвалидация, снимок мог собраться из старых данных — отдаём, но не кэшируем
+            if (treeState.compareAndSet(state, new TreeState(state.generation(), snapshot))) {
+                logger.debug("Снимок дерева категорий v{} построен: {} категорий", snapshot.getVersion(), snapshot.size());
+            }
+            return snapshot;
+        }
+    }
+
+    // Сбрасываем снимок только после коммита, чтобы параллельное чтение не собрало его из старых данных
+    private void invalidateTree() {
+        TransactionCallbacks.afterCommit(() ->
+            treeState.updateAndGet(state -> new TreeState(state.generation() + 1, null)));
+    }
+
+    @Override
+    @Deprecated
     public List<Category> getCategoryTree() {
-        List<Category> roots = categoryRepository.findByParentIsNull();
-        roots.forEach(this::loadChildrenRecursively);
-        return roots;
+        return getTreeSnapshot().copyRoots();
     }
 
-    private void loadChildrenRecursively(Category parent) {
-        List<Category> children = categoryRepository.findByParentId(parent.getId());
-        parent.setChildren(children);
-        children.forEach(this::loadChildrenRecursively);
+    @Override
+    public List<CategoryNode> getCategoryNodes() {
+        return getTreeSnapshot().roots();
     }
 
     @Override
@@ -137,6 +175,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         categoryRepository.delete(category);
+        invalidateTree();
     }
 
     @Override
@@ -190,44 +229,22 @@ public class CategoryServiceImpl implements CategoryService {
             category.isLeaf());
     }
 
-    private void collectDescendants(Category parent, Map<Long, List<Category>> parentMap, List<Category> result) {
-        result.add(parent);
-        List<Category> children = parentMap.getOrDefault(parent.getId(), Collections.emptyList());
-        for (Category child : children) {
-            collectDescendants(child, parentMap, result);
-        }
-    }
-
     @Override
     public List<Category> getAllDescendants(Category parent) {
-        List<Category> allCategories = categoryRepository.findAll();
-
-        // строим карту parentId -> список детей
-        Map<Long, List<Category>> parentMap = allCategories.stream()
-            .filter(c -> c.getParent() != null)
-            .collect(Collectors.groupingBy(c -> c.getParent().getId()));
-
-        List<Category> result = new ArrayList<>();
-        collectDescendants(parent, parentMap, result);
-
-        return result;
+        List<Category> descendants = getTreeSnapshot().copySubtree(parent.getId());
+        return descendants.isEmpty() ? List.of(parent) : descendants;
     }
 
+    @Override
+    @Deprecated
     public List<Category> getAllDescendantsById(Long parentId) {
-        List<Category> allCategories = categoryRepository.findAll(); // 1 запрос
-        Map<Long, List<Category>> parentMap = allCategories.stream()
-            .filter(c -> c.getParent() != null)
-            .collect(Collectors.groupingBy(c -> c.getParent().getId()));
-
-        List<Category> result = new ArrayList<>();
-        Category parent = allCategories.stream()
-            .filter(c -> c.getId().equals(parentId))
-            .findFirst()
-            .orElse(null);
-
-        if (parent != null) {
-            collectDescendants(parent, parentMap, result);
-        }
-        return result;
+        return getTreeSnapshot().copySubtree(parentId);
+    }
+
+    @Override
+    public List<Long> getAllDescendantIds(Long parentId) {
+        return getTreeSnapshot().descendantIds(parentId);
     }
+
+    private record TreeState(long generation, CategoryTreeSnapshot snapshot) {}
 }
\ No newline at end of file
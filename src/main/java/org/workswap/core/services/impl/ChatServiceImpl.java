@@ -8,7 +8,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.security.access.AccessDeniedException;
+import org.workswap.core.objects.chat.HistoryMessage;
+import org.workswap.core.objects.chat.InboxItem;
+import org.workswap.core.objects.chat.MessageHistoryPage;
 import org.workswap.core.services.ChatService;
+import org.workswap.core.services.components.ChatBulkDeleter;
+import org.workswap.core.services.components.ChatInboxQuery;
+import org.workswap.core.services.components.ChatUpdateDispatcher;
+import org.workswap.core.services.components.ChatInboxCache;
+import org.workswap.core.services.components.MessageHistoryQuery;
+import org.workswap.core.services.components.UnreadCounters;
 import org.workswap.datasource.central.model.Listing;
 import org.workswap.datasource.central.model.User;
 import org.workswap.common.dto.chat.ChatDTO;
@@ -23,6 +33,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -33,10 +44,20 @@ public class ChatServiceImpl implements ChatService {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
 
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int HISTORY_PAGE_SIZE = 30;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final ChatRepository chatRepository;
     private final ChatParticipantRepository chatParticipantRepository;
     private final MessageRepository messageRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final UnreadCounters unreadCounters;
+    private final MessageHistoryQuery historyQuery;
+    private final ChatInboxQuery inboxQuery;
+    private final ChatInboxCache inboxCache;
+    private final ChatUpdateDispatcher updateDispatcher;
+    private final ChatBulkDeleter bulkDeleter;
 
     @Override
     public Chat getOrCreateChat(Set<User> participants, Listing listing) {
@@ -69,8 +90,9 @@ public class ChatServiceImpl implements ChatService {
 
         logger.debug("Чатов нет, создём новый");
         // Создаём новый
-        Chat chat = new Chat(participants, listing);
-        return chatRepository.save(chat);
+        Chat chat = chatRepository.save(new Chat(participants, listing));
+        inboxCache.evictUsers(List.of(user1.getId(), user2.getId()));
+        return chat;
     }
 
     @Override
@@ -82,38 +104,50 @@ public class ChatServiceImpl implements ChatService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ChatDTO> getChatsDTOForUser(User user, Locale locale) {
-        List<Chat> chats = chatRepository.findAllByParticipant(user);
-        logger.debug("Chats for DTO found: " + chats.size());
-        return chats.parallelStream()
-                .sorted((c1, c2) -> {
-                    LocalDateTime date1 = c1.getLastMessage() != null ? c1.getLastMessage().getSentAt() : c1.getCreatedAt();
-                    LocalDateTime date2 = c2.getLastMessage() != null ? c2.getLastMessage().getSentAt() : c2.getCreatedAt();
-                    return date2.compareTo(date1);
-                })
-                .map(conv -> convertToDTO(conv, user, locale))
+        List<InboxItem> inbox = inboxCache.get(user.getId(), () -> loadInbox(user.getId()));
+        logger.debug("Chats for DTO found: " + inbox.size());
+
+        return inbox.stream()
+                .map(this::toDTO)
                 .toList();
     }
 
     @Override
-    public void notifyChatUpdate(Long chatId, User user, Locale locale) {
-        Chat chat = getChatById(chatId);
-        ChatDTO chatDto = convertToDTO(chat, user, locale);
-
-        // Определяем, есть ли новые сообщения
-        boolean hasNewMessage = chat.getMessages().stream()
-                .anyMatch(msg -> !msg.isRead() && msg.getReceiver().equals(user));
+    @Transactional(readOnly = true)
+    public List<InboxItem> getInbox(User user) {
+        return inboxCache.get(user.getId(), () -> loadInbox(user.getId()));
+    }
 
-        // Устанавливаем флаг нового сообщения
-        chatDto.setHasNewMessage(hasNewMessage);
+    private List<InboxItem> loadInbox(Long userId) {
+        Map<Long, Long> unread = unreadCounters.getAll(userId);
+        return inboxQuery.findInbox(userId).stream()
+                .map(row -> new InboxItem(
+                        row.chatId(),
+                        row.temporary(),
+                        row.createdAt(),
+                        row.lastMessageText(),
+                        row.lastMessageTime(),
+                        unread.getOrDefault(row.chatId(), 0L),
+                        row.listingId(),
+                        row.interlocutorId(),
+                        row.interlocutorName(),
+                        row.interlocutorAvatarUrl()))
+                .toList();
+    }
 
-        // Отправляем обновление конкретному пользователю
-        messagingTemplate.convertAndSendToUser(
-                user.getEmail(),
-                "queue/chats.updates",
-                chatDto
-        );
+    @Override
+    public void notifyChatUpdate(Long chatId, User user) {
+        Long userId = user.getId();
+
+        // DTO строится из модели списка чатов в момент отправки пакета, один раз на окно
+        updateDispatcher.submit(user.getEmail(), chatId, () ->
+                inboxCache.get(userId, () -> loadInbox(userId)).stream()
+                        .filter(item -> item.chatId().equals(chatId))
+                        .findFirst()
+                        .map(this::toDTO)
+                        .orElse(null));
     }
 
     @Override
@@ -123,8 +157,7 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public long getUnreadMessageCount(Chat chat, User user) {
-        // Получаем все непрочитанные сообщения для конкретного разговора и пользователя
-        return messageRepository.findByChatAndReceiverAndReadFalse(chat, user).size();
+        return unreadCounters.get(chat.getId(), user.getId());
     }
 
     @Override
@@ -132,6 +165,47 @@ public class ChatServiceImpl implements ChatService {
         return messageRepository.findByChatOrderBySentAtAsc(chat);
     }
 
+    @Override
+    public List<Message> getMessagesBefore(Chat chat, Long beforeMessageId, int limit) {
+        return historyQuery.findBefore(chat.getId(), beforeMessageId, clampHistoryLimit(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MessageHistoryPage getHistoryPage(Long chatId, User user, Long beforeMessageId, int limit) {
+        if (!historyQuery.isParticipant(chatId, user.getId())) {
+            throw new AccessDeniedException("Пользователь не участвует в чате " + chatId);
+        }
+
+        int pageSize = clampHistoryLimit(limit);
+        // берём на одно сообщение больше, чтобы понять, есть ли ещё более ранние
+        List<Message> messages = historyQuery.findBefore(chatId, beforeMessageId, pageSize + 1);
+
+        boolean hasMore = messages.size() > pageSize;
+        if (hasMore) {
+            messages = messages.subList(1, messages.size());
+        }
+
+        List<HistoryMessage> items = messages.stream().map(HistoryMessage::of).toList();
+        Long nextBeforeId = hasMore && !items.isEmpty() ? items.get(0).getId() : null;
+
+        return new MessageHistoryPage(chatId, items, nextBeforeId);
+    }
+
+    @Override
+    public void streamHistoryPage(Long chatId, User user, Long beforeMessageId, int limit) {
+        // клиент запрашивает следующую страницу по nextBeforeId, когда пользователь докручивает вверх
+        messagingTemplate.convertAndSendToUser(
+                user.getEmail(),
+                "queue/chats.history",
+                getHistoryPage(chatId, user, beforeMessageId, limit)
+        );
+    }
+
+    private int clampHistoryLimit(int limit) {
+        return limit <= 0 ? HISTORY_PAGE_SIZE : Math.min(limit, MAX_HISTORY_PAGE_SIZE);
+    }
+
     @Override
     @Transactional
     public Message sendMessage(Chat chat, User sender, String text) {
@@ -139,6 +213,9 @@ public class ChatServiceImpl implements ChatService {
         Message message = new Message(chat, sender, chat.getInterlocutor(sender), text);
 
         messageRepository.save(message);
+        Long receiverId = message.getReceiver() != null ? message.getReceiver().getId() : null;
+        unreadCounters.messageSent(chat.getId(), receiverId);
+        inboxCache.messageSent(chat.getId(), sender.getId(), receiverId, message.getText(), message.getSentAt());
 
         return message;
     }
@@ -152,39 +229,58 @@ public class ChatServiceImpl implements ChatService {
     @Transactional
     public void markMessagesAsRead(Long chatId, User reader) {
         messageRepository.markMessagesAsRead(chatId, reader.getId());
+        unreadCounters.chatRead(chatId, reader.getId());
+        inboxCache.chatRead(chatId, reader.getId());
     }
 
     @Override
     public ChatDTO convertToDTO(Chat chat, User currentUser, Locale locale) {
         logger.debug("Конвертация в дто начата разговора: " + chat.getId());
 
+        Message lastMessage = chat.getLastMessage();
+        return buildDTO(
+                chat.getId(),
+                chat.isTemporary(),
+                chat.getCreatedAt(),
+                lastMessage != null ? lastMessage.getText() : null,
+                lastMessage != null ? lastMessage.getSentAt() : null,
+                getUnreadMessageCount(chat, currentUser));
+    }
+
+    private ChatDTO toDTO(InboxItem item) {
+        return buildDTO(
+                item.chatId(),
+                item.temporary(),
+                item.createdAt(),
+                item.lastMessagePreview(),
+                item.lastMessageTime(),
+                item.unreadCount());
+    }
+
+    private ChatDTO buildDTO(
+            Long chatId,
+            boolean temporary,
+            LocalDateTime createdAt,
+            String lastMessageText,
+            LocalDateTime lastMessageTime,
+            long unreadCount
+    ) {
         ChatDTO dto = new ChatDTO();
-        dto.setId(chat.getId());
-        dto.setUnreadCount(getUnreadMessageCount(chat, currentUser));
-        dto.setTemporary(chat.isTemporary());
+        dto.setId(chatId);
+        dto.setUnreadCount(unreadCount);
+        dto.setTemporary(temporary);
 
-        logger.debug("Обработка последнего сообщения");
         // Обработка последнего сообщения
-        Message lastMessage = chat.getLastMessage();
-        if (lastMessage != null) {
-            dto.setLastMessagePreview(lastMessage.getText());
-            dto.setLastMessageTime(lastMessage.getSentAt());
-            dto.setFormattedLastMessageTime(
-                    lastMessage.getSentAt().format(DateTimeFormatter.ofPattern("HH:mm"))
-            );
+        if (lastMessageTime != null) {
+            dto.setLastMessagePreview(lastMessageText);
+            dto.setLastMessageTime(lastMessageTime);
+            dto.setFormattedLastMessageTime(lastMessageTime.format(TIME_FORMAT));
         } else {
-            dto.setLastMessageTime(chat.getCreatedAt());
+            dto.setLastMessageTime(createdAt);
         }
 
-        logger.debug("Определяем, есть ли новые сообщения");
-
-        // Определяем, есть ли новые сообщения
-        boolean hasNewMessage = chat.getMessages().stream()
-                .filter(msg -> msg.getReceiver().equals(currentUser))
-                .anyMatch(msg -> !msg.isRead());
-        dto.setHasNewMessage(hasNewMessage);
-
-        logger.debug("Конвертация закончена");
+        // Новые сообщения есть ровно тогда, когда счётчик непрочитанных не пуст
+        dto.setHasNewMessage(unreadCount > 0);
 
         return dto;
     }
@@ -193,6 +289,7 @@ public class ChatServiceImpl implements ChatService {
     public void setPermanentChat(Chat chat) {
         chat.setTemporary(false);
         chatRepository.save(chat);
+        inboxCache.chatPermanent(chat.getId());
     }
 
     @Override
@@ -200,21 +297,8 @@ public class ChatServiceImpl implements ChatService {
     public void deleteChat(Chat chat) {
         
         logger.debug("Начинаем удаление чата {}", chat.getId());
-        List<Message> messages = chat.getMessages();
-
-        logger.debug("> Чистим сообщения");
 
-        if (!messages.isEmpty()) {
-            for(Message msg : messages) {
-                logger.debug(">> Удаляем сообщение {}", msg.getId());
-                messageRepository.delete(msg);
-            }
-        } else {
-            logger.debug("> В чате не было сообщений");
-        }
-
-        logger.debug("Удаляем чат");
-        
-        chatRepository.delete(chat);
+        int deleted = bulkDeleter.deleteChats(List.of(chat));
+        logger.debug("> Чат удалён, удалено сообщений: {}", deleted);
     }
 }
@@ -2,13 +2,21 @@ package org.workswap.core.services.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.workswap.common.dto.LocationDTO;
 import org.workswap.common.enums.SearchModelParamType;
+import org.workswap.core.objects.LocationRegistry;
 import org.workswap.core.services.LocationService;
 import org.workswap.core.services.components.ServiceUtils;
+import org.workswap.core.services.components.TransactionCallbacks;
 import org.workswap.datasource.central.model.listingModels.Location;
 import org.workswap.datasource.central.repository.LocationRepository;
 
@@ -18,10 +26,16 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @Profile({"production", "statistic"})
 public class LocationServiceImpl implements LocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationService.class);
     
     private final LocationRepository locationRepository;
 
     private final ServiceUtils serviceUtils;
+    private final PlatformTransactionManager transactionManager;
+
+    // Поколение растёт с каждой инвалидацией; справочник кладётся в кэш только в том поколении, в котором начали сборку
+    private final AtomicReference<RegistryState> registryState = new AtomicReference<>(new RegistryState(0, null));
 
     private Location findLocationFromRepostirory(String param, SearchModelParamType paramType) {
         switch (paramType) {
@@ -34,54 +48,149 @@ public class LocationServiceImpl implements LocationService {
         }
     }
 
+    private LocationRegistry.Entry findLocationFromRegistry(LocationRegistry registry, String param, SearchModelParamType paramType) {
+        switch (paramType) {
+            case ID:
+                return registry.findById(Long.parseLong(param));
+            case NAME:
+                return registry.findByName(param);
+            default:
+                return null;
+        }
+    }
+
+    private LocationRegistry getRegistry() {
+        RegistryState state = registryState.get();
+        if (state.registry() != null) {
+            return state.registry();
+        }
+
+        synchronized (registryState) {
+            state = registryState.get();
+            if (state.registry() != null) {
+                return state.registry();
+            }
+
+            // своя транзакция: сущности справочника не должны попасть в контекст вызывающего и остаться в нём managed
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transactionTemplate.setReadOnly(true);
+            LocationRegistry registry = transactionTemplate.execute(status -> LocationRegistry.build(locationRepository.findAll()));
+            // если во время сборки прошла инвалидация, справочник мог собраться из старых данных — отдаём, но не кэшируем
+            if (registryState.compareAndSet(state, new RegistryState(state.generation(), registry))) {
+                logger.debug("Справочник локаций загружен: {} локаций", registry.size());
+            }
+            return registry;
+        }
+    }
+
+    private void invalidateRegistry() {
+        TransactionCallbacks.afterCommit(() ->
+            registryState.updateAndGet(state -> new RegistryState(state.generation() + 1, null)));
+    }
+
     @Override
     public Location findLocation(String param) {
+        Long id = findLocationId(param);
+        if (id == null) {
+            return null;
+        }
+        Location location = getRegistry().getEntity(id);
+        // ещё не закоммиченная локация текущей транзакции в справочник не попадёт
+        return location != null ? location : locationRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    public Long findLocationId(String param) {
         if (param == null) {
             return null;
         }
+        LocationRegistry registry = getRegistry();
         SearchModelParamType paramType = serviceUtils.detectParamType(param);
-        return findLocationFromRepostirory(param, paramType);
+        LocationRegistry.Entry entry = findLocationFromRegistry(registry, param, paramType);
+        if (entry != null) {
+            return entry.id();
+        }
+        if (registry.isKnownMiss(param)) {
+            return null;
+        }
+
+        // локация могла появиться в обход сервиса — проверяем в БД один раз
+        Location location = findLocationFromRepostirory(param, paramType);
+        if (location == null) {
+            registry.rememberMiss(param);
+            return null;
+        }
+        invalidateRegistry(); // справочник отстал от БД — пересоберём
+        return location.getId();
+    }
+
+    @Override
+    public List<Long> getDescendantIds(Long locationId) {
+        List<Long> descendants = new ArrayList<>();
+        descendants.add(locationId);
+        LocationRegistry.Entry entry = getRegistry().findById(locationId);
+        if (entry != null && !entry.city()) {
+            descendants.addAll(getRegistry().getCityIds(locationId));
+        }
+        return descendants;
     }
 
     public List<Location> getAllDescendants(Location location) {
         List<Location> descendants = new ArrayList<>();
         descendants.add(location);
         if (!location.isCity()) {
-            List<Location> cities = locationRepository.findByCountry(location);
-            for (Location child : cities) {
-                descendants.add(child);
-            }
+            LocationRegistry registry = getRegistry();
+            descendants.addAll(registry.getEntities(registry.getCityIds(location.getId())));
         }
         return descendants;
     }
 
     @Override
     public List<Location> getCountries() {
-        return locationRepository.findByCity(false);
+        LocationRegistry registry = getRegistry();
+        return registry.getEntities(registry.getCountryIds());
     }
 
     @Override
     public List<Location> getCities(Long coutryId) {
-        return locationRepository.findByCountryId(coutryId);
+        LocationRegistry registry = getRegistry();
+        return registry.getEntities(registry.getCityIds(coutryId));
     }
 
     @Override
     public void save(Location location) {
         locationRepository.save(location);
+        invalidateRegistry();
     }
     
     @Override
     public Location saveAndReturn(Location location) {
-        return locationRepository.save(location);
+        Location saved = locationRepository.save(location);
+        invalidateRegistry();
+        return saved;
     }
 
     public LocationDTO toDTO(Location location) {
+        LocationRegistry.Entry entry = getRegistry().findById(location.getId());
         LocationDTO dto = new LocationDTO();
+        if (entry != null) {
+            dto.setCity(entry.city());
+            dto.setCountryId(entry.city() ? entry.countryId() : null);
+            dto.setFullName(entry.fullName());
+            dto.setName(entry.name());
+            dto.setId(entry.id());
+            return dto;
+        }
+
+        // локации ещё нет в справочнике (сохранена в этой транзакции) — берём поля сущности
         dto.setCity(location.isCity());
-        dto.setCountryId(location.isCity() == true ? location.getCountry().getId() : null);
+        dto.setCountryId(location.isCity() && location.getCountry() != null ? location.getCountry().getId() : null);
         dto.setFullName(location.getFullName());
         dto.setName(location.getName());
         dto.setId(location.getId());
         return dto;
     }
+
+    private record RegistryState(long generation, LocationRegistry registry) {}
 }
@@ -1,5 +1,6 @@
 package org.workswap.core.services.impl;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -16,7 +17,9 @@ import org.workswap.datasource.central.model.News;
 import org.workswap.datasource.central.model.NewsTranslation;
 import org.workswap.common.enums.SearchModelParamType;
 import org.workswap.datasource.central.repository.NewsRepository;
+import org.workswap.core.objects.LocalizedText;
 import org.workswap.core.services.NewsService;
+import org.workswap.core.services.components.LocalizedTextCache;
 import org.workswap.core.services.components.ServiceUtils;
 
 import lombok.RequiredArgsConstructor;
@@ -29,6 +32,8 @@ public class NewsServiceImpl implements NewsService {
     private final NewsRepository newsRepository;
     private final ServiceUtils serviceUtils;
 
+    private final LocalizedTextCache localizedTextCache = new LocalizedTextCache(10_000, Duration.ofMinutes(10));
+
     private News findNewsFromRepostirory(String param, SearchModelParamType paramType) {
         switch (paramType) {
             case ID:
@@ -57,7 +62,9 @@ public class NewsServiceImpl implements NewsService {
 
     @Override
     public News save(News news) {
-        return newsRepository.save(news);
+        News saved = newsRepository.save(news);
+        localizedTextCache.invalidate(saved.getId());
+        return saved;
     }
 
     @Override
@@ -71,6 +78,7 @@ public class NewsServiceImpl implements NewsService {
                 }
             } */
             newsRepository.delete(news);
+            localizedTextCache.invalidate(id);
         });
     }
 
@@ -131,9 +139,19 @@ public class NewsServiceImpl implements NewsService {
 
     @Override
     public void localizeNews(News news, Locale locale) {
+        LocalizedText text = getLocalizedText(news, locale);
+        news.setLocalizedTitle(text.getTitle());
+        news.setLocalizedExcerpt(text.getExcerpt());
+        news.setLocalizedContent(text.getDescription());
+    }
+
+    @Override
+    public LocalizedText getLocalizedText(News news, Locale locale) {
         String lang = locale.getLanguage();
-        Map<String, NewsTranslation> translations = news.getTranslations();
+        return localizedTextCache.get(news.getId(), lang, () -> selectTranslation(news.getTranslations(), lang));
+    }
 
+    private LocalizedText selectTranslation(Map<String, NewsTranslation> translations, String lang) {
         NewsTranslation selected = translations.get(lang);
 
         // fallback, если нужного языка нет
@@ -147,15 +165,13 @@ public class NewsServiceImpl implements NewsService {
             }
         }
 
-        if (selected != null) {
-            news.setLocalizedTitle(safe(selected.getTitle()));
-            news.setLocalizedExcerpt(safe(selected.getShortDescription()));
-            news.setLocalizedContent(safe(selected.getDescription()));
-        } else {
-            news.setLocalizedTitle(null);
-            news.setLocalizedExcerpt(null);
-            news.setLocalizedContent(null);
+        if (selected == null) {
+            return LocalizedText.EMPTY;
         }
+        return new LocalizedText(
+            safe(selected.getTitle()),
+            safe(selected.getShortDescription()),
+            safe(selected.getDescription()));
     }
 
     private String safe(String value) {
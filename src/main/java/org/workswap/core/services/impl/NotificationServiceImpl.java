@@ -111,11 +111,9 @@ public class NotificationServiceImpl implements NotificationService {
                 reciverLocale = Locale.of(receiver.getLanguages().get(0));
             }
 
-            newsService.localizeNews(news, reciverLocale);
-
             NotificationDTO notification = new NotificationDTO(
                 messageSource.getMessage("new.news.notification", null, reciverLocale),
-                news.getLocalizedTitle(),
+                newsService.getLocalizedText(news, reciverLocale).getTitle(),
                 "/news/" + news.getId()
             );
             saveOfflineChatNotification(receiver.getSub(), notification);
@@ -1,5 +1,6 @@
 package org.workswap.core.services.mapping;
 
+import java.util.List;
 import java.util.Locale;
 
 import org.workswap.common.dto.listing.CatalogListingDTO;
@@ -9,5 +10,6 @@ import org.workswap.datasource.central.model.Listing;
 public interface ListingMappingService {
 
     ListingDTO convertToDTO(Listing listing, Locale locale);
+    List<ListingDTO> convertToDTOs(List<Listing> listings, Locale locale);
     CatalogListingDTO convertToCatalogDTO(Listing listing, Locale locale);
 }
@@ -1,6 +1,10 @@
 package org.workswap.core.services.mapping.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
@@ -8,12 +12,15 @@ import org.springframework.transaction.annotation.Transactional;
 import org.workswap.common.dto.listing.CatalogListingDTO;
 import org.workswap.common.dto.listing.ListingDTO;
 import org.workswap.common.enums.PriceType;
+import org.workswap.core.objects.LocalizedText;
 import org.workswap.core.services.mapping.ListingMappingService;
 import org.workswap.core.services.util.ListingLocalizationService;
 import org.workswap.datasource.central.model.Listing;
 import org.workswap.datasource.central.model.listingModels.Category;
 import org.workswap.datasource.central.model.listingModels.Location;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -21,8 +28,13 @@ import lombok.RequiredArgsConstructor;
 @Profile({"production", "statistic"})
 public class ListingMappingServiceImpl implements ListingMappingService {
 
+    private static final int BATCH_SIZE = 500;
+
     private final ListingLocalizationService listingLocalizationService;
 
+    @PersistenceContext(unitName = "central")
+    private EntityManager entityManager;
+
     @Transactional
     public ListingDTO convertToDTO(Listing listing, Locale locale) {
         if (listing == null) {
@@ -33,13 +45,13 @@ public class ListingMappingServiceImpl implements ListingMappingService {
         Category cat = listing.getCategory();
         Location loc = listing.getLocation();
 
-        listingLocalizationService.localizeListing(listing, locale);
+        LocalizedText text = listingLocalizationService.resolve(listing, locale);
 
         ListingDTO dto = new ListingDTO(
             listing.getId(),
             listing.getAuthor().getId(),
-            listing.getLocalizedTitle(),
-            listing.getLocalizedDescription(),
+            text.getTitle(),
+            text.getDescription(),
             listing.getPrice(),
             priceType != null ? priceType.getDisplayName() : null,
             cat != null ? cat.getName() : null,
@@ -58,6 +70,49 @@ public class ListingMappingServiceImpl implements ListingMappingService {
         return dto;
     }
 
+    /**
+     * Маппинг списка объявлений без N+1: категории, локации и переводы всей пачки
+     * подгружаются двумя запросами на каждые BATCH_SIZE объявлений, порядок сохраняется.
+     */
+    @Transactional(readOnly = true)
+    public List<ListingDTO> convertToDTOs(List<Listing> listings, Locale locale) {
+        if (listings == null || listings.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = listings.stream()
+            .map(Listing::getId)
+            .distinct()
+            .toList();
+
+        Map<Long, Listing> prefetched = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+
+            // автора не тянем: для DTO нужен только его id, он есть у прокси
+            entityManager.createQuery(
+                    "SELECT l FROM Listing l LEFT JOIN FETCH l.category LEFT JOIN FETCH l.location WHERE l.id IN :ids",
+                    Listing.class)
+                .setParameter("ids", chunk)
+                .getResultList()
+                .forEach(l -> prefetched.put(l.getId(), l));
+
+            // переводы отдельным запросом, чтобы не умножать строки на join-е
+            entityManager.createQuery(
+                    "SELECT DISTINCT l FROM Listing l LEFT JOIN FETCH l.translations WHERE l.id IN :ids",
+                    Listing.class)
+                .setParameter("ids", chunk)
+                .getResultList();
+        }
+
+        List<ListingDTO> result = new ArrayList<>(listings.size());
+        for (Listing listing : listings) {
+            Listing loaded = prefetched.get(listing.getId());
+            result.add(convertToDTO(loaded != null ? loaded : listing, locale));
+        }
+        return result;
+    }
+
     public CatalogListingDTO convertToCatalogDTO(Listing listing, Locale locale) {
         
         if (listing == null) {
@@ -68,12 +123,12 @@ public class ListingMappingServiceImpl implements ListingMappingService {
         Category cat = listing.getCategory();
         Location loc = listing.getLocation();
 
-        listingLocalizationService.localizeListing(listing, locale);
+        LocalizedText text = listingLocalizationService.resolve(listing, locale);
 
         CatalogListingDTO dto = new CatalogListingDTO(
             listing.getId(),
-            listing.getLocalizedTitle(),
-            listing.getLocalizedDescription(),
+            text.getTitle(),
+            text.getDescription(),
             listing.getPrice(),
             priceType != null ? priceType.getDisplayName() : null,
             cat != null ? cat.getName() : null,
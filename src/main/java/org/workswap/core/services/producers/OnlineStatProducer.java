@@ -4,6 +4,7 @@ import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.workswap.common.dto.stat.OnlineStatSnapshotDTO;
+import org.workswap.core.services.analytic.OnlineCounter;
 
 import lombok.RequiredArgsConstructor;
 
@@ -13,9 +14,15 @@ import lombok.RequiredArgsConstructor;
 public class OnlineStatProducer {
 
     private final AmqpTemplate amqpTemplate;
+    private final OnlineCounter onlineCounter;
 
     public void sendOnlineStat(OnlineStatSnapshotDTO dto) {
 
+        // онлайн уже глобальный — в кластере снимок отправляет только один узел
+        if (!onlineCounter.isReportingNode()) {
+            return;
+        }
+
         amqpTemplate.convertAndSend("onlineStatQueue", dto);
     }
 }
@@ -8,6 +8,7 @@ import org.workswap.common.dto.listing.CatalogListingDTO;
 import org.workswap.common.dto.listing.ImageDTO;
 import org.workswap.common.dto.listing.ListingDTO;
 import org.workswap.common.dto.listing.ListingTranslationDTO;
+import org.workswap.core.objects.catalog.CatalogPage;
 import org.workswap.datasource.central.model.Listing;
 import org.workswap.datasource.central.model.User;
 import org.workswap.datasource.central.model.listingModels.Category;
@@ -45,6 +46,19 @@ public interface ListingQueryService {
         String searchQuery,
         boolean hasReviews);
 
+    CatalogPage getCatalogPage(
+        User user,
+        String location,
+        String lang,
+        Long categoryId,
+        String sortBy,
+        String searchQuery,
+        boolean hasReviews,
+        String cursor);
+
+    // Объявления в радиусе radiusKm от локации, ближайшие первыми
+    List<CatalogListingDTO> getNearbyListings(String location, double radiusKm, String lang, int page);
+
     ListingDTO getListingDTO(Long id, String locale);
     
     List<ListingDTO> getDrafts(User user, String locale);
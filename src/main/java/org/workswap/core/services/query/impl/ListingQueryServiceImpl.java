@@ -1,10 +1,12 @@
 package org.workswap.core.services.query.impl;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -18,9 +20,21 @@ import org.workswap.common.dto.listing.ImageDTO;
 import org.workswap.common.dto.listing.ListingDTO;
 import org.workswap.common.dto.listing.ListingTranslationDTO;
 import org.workswap.common.enums.SearchModelParamType;
+import org.workswap.core.objects.catalog.CatalogCursor;
+import org.workswap.core.objects.catalog.CatalogFilter;
+import org.workswap.core.objects.catalog.CatalogPage;
+import org.workswap.core.objects.catalog.CatalogSort;
 import org.workswap.core.services.CategoryService;
 import org.workswap.core.services.LocationService;
+import org.workswap.core.services.components.CatalogIndex;
+import org.workswap.core.services.components.CatalogPageCache;
+import org.workswap.core.services.components.ListingCatalogQuery;
+import org.workswap.core.services.components.ListingDetailCache;
+import org.workswap.core.services.components.ListingGeoIndex;
+import org.workswap.core.services.components.ListingGeoIndex.GeoHit;
+import org.workswap.core.services.components.ListingGeoIndex.GeoPoint;
 import org.workswap.core.services.components.ServiceUtils;
+import org.workswap.core.services.components.search.ListingSearchIndex;
 import org.workswap.core.services.mapping.ListingMappingService;
 import org.workswap.core.services.query.ListingQueryService;
 import org.workswap.core.services.util.ListingLocalizationService;
@@ -41,10 +55,18 @@ public class ListingQueryServiceImpl implements ListingQueryService {
 
     private static final Logger logger = LoggerFactory.getLogger(ListingQueryService.class);
 
+    private static final int CATALOG_PAGE_SIZE = 12;
+
     private final ListingRepository listingRepository;
     private final UserRepository userRepository;
 
     private final ServiceUtils serviceUtils;
+    private final ListingCatalogQuery catalogQuery;
+    private final CatalogIndex catalogIndex;
+    private final CatalogPageCache pageCache;
+    private final ListingDetailCache detailCache;
+    private final ListingGeoIndex geoIndex;
+    private final ListingSearchIndex searchIndex;
 
     private final CategoryService categoryService;
     private final LocationService locationService;
@@ -139,75 +161,168 @@ public class ListingQueryServiceImpl implements ListingQueryService {
         String searchQuery,
         boolean hasReviews
     ) {
-        List<String> languages = new ArrayList<>();
-
-        if (user != null) {
-            languages = user.getLanguages();
+        CatalogFilter filter = buildCatalogFilter(user, location, lang, categoryId, searchQuery, hasReviews);
+        CatalogSort sort = CatalogSort.fromParam(sortBy);
+        int offset = Math.max(page, 0) * CATALOG_PAGE_SIZE;
+        Locale locale = Locale.of(lang);
+
+        // без явной сортировки результаты поиска идут по релевантности
+        if (filter.getMatchedIds() != null && (sortBy == null || sortBy.isBlank() || "relevance".equals(sortBy))) {
+            return toCatalogDtos(findRankedListings(filter, offset, CATALOG_PAGE_SIZE), locale);
         }
 
-        if (!languages.contains(lang)) {
-            languages.add(lang);
+        // страницы зависят от пользователя (его языки) и от поискового запроса — такие не кэшируем
+        if (user != null || (searchQuery != null && !searchQuery.isBlank())) {
+            return loadCatalogDtos(filter, sort, offset, locale);
         }
 
-        List<Category> categories = categoryService.getAllDescendantsById(categoryId);
-
-        Comparator<Listing> comparator;
-        switch (sortBy) {
-            case "price":
-                comparator = Comparator.comparing(Listing::getPrice, Comparator.nullsLast(Comparator.naturalOrder()));
-                break;
-            case "rating":
-                comparator = Comparator.comparing(Listing::getRating, Comparator.nullsLast(Comparator.reverseOrder()));
-                break;
-            case "popularity":
-                comparator = Comparator.comparing(Listing::getViews, Comparator.nullsLast(Comparator.reverseOrder()));
-                break;
-            case "date":
-            default:
-                comparator = Comparator.comparing(Listing::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
-                break;
+        return pageCache.get(filter, locale, sort, Math.max(page, 0),
+            () -> loadCatalogDtos(filter, sort, offset, locale));
+    }
+
+    private List<CatalogListingDTO> loadCatalogDtos(CatalogFilter filter, CatalogSort sort, int offset, Locale locale) {
+        return toCatalogDtos(findCatalogListings(filter, sort, null, offset, CATALOG_PAGE_SIZE), locale);
+    }
+
+    private List<CatalogListingDTO> toCatalogDtos(List<Listing> foundListings, Locale locale) {
+        List<CatalogListingDTO> listings = new ArrayList<>();
+        for(Listing l : foundListings) {
+            listings.add(mappingService.convertToCatalogDTO(l, locale));
         }
 
-        List<Listing> foundListings = listingRepository.findListings(categories, location, searchQuery, hasReviews, languages, page, 12);
+        return listings;
+    }
 
-        foundListings.sort(comparator);
+    public CatalogPage getCatalogPage(
+        User user,
+        String location,
+        String lang,
+        Long categoryId,
+        String sortBy,
+        String searchQuery,
+        boolean hasReviews,
+        String cursor
+    ) {
+        CatalogFilter filter = buildCatalogFilter(user, location, lang, categoryId, searchQuery, hasReviews);
+        CatalogSort sort = CatalogSort.fromParam(sortBy);
+        CatalogCursor after = (cursor != null && !cursor.isBlank()) ? CatalogCursor.decode(cursor, sort) : null;
+
+        // берём на одно объявление больше, чтобы понять, есть ли следующая страница
+        List<Listing> foundListings = findCatalogListings(filter, sort, after, 0, CATALOG_PAGE_SIZE + 1);
+
+        boolean hasNext = foundListings.size() > CATALOG_PAGE_SIZE;
+        if (hasNext) {
+            foundListings = foundListings.subList(0, CATALOG_PAGE_SIZE);
+        }
 
         List<CatalogListingDTO> listings = new ArrayList<>();
-        for(Listing l : foundListings) {
+        for (Listing l : foundListings) {
             listings.add(mappingService.convertToCatalogDTO(l, Locale.of(lang)));
         }
 
+        String nextCursor = hasNext
+            ? CatalogCursor.after(sort, foundListings.get(foundListings.size() - 1)).encode()
+            : null;
+
+        return new CatalogPage(listings, nextCursor);
+    }
+
+    private List<Listing> findCatalogListings(CatalogFilter filter, CatalogSort sort, CatalogCursor after, int offset, int limit) {
+        List<Long> ids = catalogIndex.findPage(filter, sort, after, offset, limit);
+        if (ids == null) {
+            logger.debug("Запрос каталога не обслуживается индексом, идём в БД");
+            return catalogQuery.findPage(filter, sort, after, offset, limit);
+        }
+
+        return findAllInOrder(ids);
+    }
+
+    private List<Listing> findRankedListings(CatalogFilter filter, int offset, int limit) {
+        List<Long> ids = catalogIndex.findRankedPage(filter, offset, limit);
+        if (ids == null) {
+            logger.debug("Поиск по релевантности не обслуживается индексом, фильтруем совпадения в БД");
+            Set<Long> passing = new HashSet<>(catalogQuery.findIds(filter));
+            ids = filter.getMatchedIds().stream()
+                .filter(passing::contains)
+                .skip(offset)
+                .limit(limit)
+                .toList();
+        }
+        return findAllInOrder(ids);
+    }
+
+    // порядок задаёт индекс, из БД только поднимаем сущности по первичному ключу
+    private List<Listing> findAllInOrder(List<Long> ids) {
+        Map<Long, Listing> byId = catalogQuery.findByIds(ids)
+            .stream()
+            .collect(Collectors.toMap(Listing::getId, l -> l));
+
+        List<Listing> listings = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Listing listing = byId.get(id);
+            if (listing != null) {
+                listings.add(listing);
+            }
+        }
         return listings;
     }
 
+    private CatalogFilter buildCatalogFilter(
+        User user,
+        String location,
+        String lang,
+        Long categoryId,
+        String searchQuery,
+        boolean hasReviews
+    ) {
+        List<String> languages = new ArrayList<>();
+
+        if (user != null) {
+            languages.addAll(user.getLanguages());
+        }
+
+        if (!languages.contains(lang)) {
+            languages.add(lang);
+        }
+
+        List<Long> categoryIds = categoryService.getAllDescendantIds(categoryId);
+
+        List<Long> locationIds = new ArrayList<>();
+        if (location != null && !location.isBlank()) {
+            Long locationId = locationService.findLocationId(location);
+            if (locationId != null) {
+                locationIds.addAll(locationService.getDescendantIds(locationId));
+            } else {
+                logger.debug("Локация {} не найдена, фильтр по локации не применяем", location);
+            }
+        }
+
+        Set<Long> matchedIds = null;
+        if (searchQuery != null && !searchQuery.isBlank() && searchIndex.isReady()) {
+            // все совпадения в порядке релевантности: его использует сортировка по релевантности
+            matchedIds = new LinkedHashSet<>(searchIndex.search(searchQuery, languages));
+            logger.debug("Полнотекстовый поиск '{}': {} совпадений", searchQuery, matchedIds.size());
+        }
+
+        return new CatalogFilter(categoryIds, locationIds, languages, searchQuery, hasReviews, matchedIds);
+    }
+
     public List<ListingDTO> getDrafts(User user, String locale) {
-        return findDrafts(user)
-            .stream()
-            .map(listing -> mappingService.convertToDTO(listing, Locale.of(locale)))
-            .toList();
+        return mappingService.convertToDTOs(findDrafts(user), Locale.of(locale));
     }
 
     public List<ListingDTO> getRecentListings(int amount, String locale) {
-        return getRecentListings(amount)
-            .stream()
-            .map(listing -> mappingService.convertToDTO(listing, Locale.of(locale)))
-            .toList();
+        return mappingService.convertToDTOs(getRecentListings(amount), Locale.of(locale));
     }
 
     public List<ListingDTO> getListingDtosByUser(Long id, String locale) {
         User user = userRepository.findById(id).orElse(null);
 
-        return findListingsByUser(user)
-            .stream()
-            .map(listing -> mappingService.convertToDTO(listing, Locale.of(locale)))
-            .toList();
+        return mappingService.convertToDTOs(findListingsByUser(user), Locale.of(locale));
     }
 
     public List<ListingDTO> getFavorites(User user, String locale) {
-        return findFavoritesListingsByUser(user)
-            .stream()
-            .map(listing -> mappingService.convertToDTO(listing, Locale.of(locale)))
-            .toList();
+        return mappingService.convertToDTOs(findFavoritesListingsByUser(user), Locale.of(locale));
     }
 
     public Map<String, ListingTranslationDTO> getTranslations(Long id) {
@@ -265,7 +380,31 @@ public class ListingQueryServiceImpl implements ListingQueryService {
         return favorites;
     }
 
+    public List<CatalogListingDTO> getNearbyListings(String location, double radiusKm, String lang, int page) {
+        Long centerId = locationService.findLocationId(location);
+        GeoPoint point = centerId != null ? geoIndex.getPoint(centerId) : null;
+        if (point == null) {
+            logger.debug("Нет координат для локации {}, поиск по радиусу невозможен", location);
+            return new ArrayList<>();
+        }
+
+        List<GeoHit> hits = geoIndex.findWithin(point, radiusKm, Math.max(page, 0) * CATALOG_PAGE_SIZE, CATALOG_PAGE_SIZE);
+        List<Long> ids = hits.stream().map(GeoHit::listingId).toList();
+
+        Map<Long, Listing> byId = catalogQuery.findByIds(ids).stream()
+            .collect(Collectors.toMap(Listing::getId, l -> l));
+
+        List<CatalogListingDTO> listings = new ArrayList<>();
+        for (Long id : ids) {
+            Listing listing = byId.get(id);
+            if (listing != null) {
+                listings.add(mappingService.convertToCatalogDTO(listing, Locale.of(lang)));
+            }
+        }
+        return listings;
+    }
+
     public ListingDTO getListingDTO(Long id, String locale) {
-        return mappingService.convertToDTO(findListing(id.toString()), Locale.of(locale));
+        return detailCache.get(id, locale, () -> mappingService.convertToDTO(findListing(id.toString()), Locale.of(locale)));
     }
 }
\ No newline at end of file
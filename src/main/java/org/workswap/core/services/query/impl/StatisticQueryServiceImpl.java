@@ -1,24 +1,22 @@
 package org.workswap.core.services.query.impl;
 
 import java.text.NumberFormat;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.IntSummaryStatistics;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.workswap.common.dto.analytic.OnlineStatsMetricsDTO;
+import org.workswap.common.enums.IntervalType;
+import org.workswap.core.services.components.ListingStatRollup;
+import org.workswap.core.services.components.ListingStatRollup.MetricRange;
+import org.workswap.core.services.components.OnlineMetricsAggregator;
+import org.workswap.core.services.components.SiteCounters;
 import org.workswap.core.services.query.StatisticQueryService;
 import org.workswap.datasource.central.model.Listing;
 import org.workswap.datasource.central.model.User;
-import org.workswap.datasource.central.repository.ResumeRepository;
-import org.workswap.datasource.central.repository.UserRepository;
-import org.workswap.datasource.central.repository.listing.ListingRepository;
 import org.workswap.datasource.stats.model.ListingStatSnapshot;
 import org.workswap.datasource.stats.model.OnlineStatSnapshot;
 import org.workswap.datasource.stats.repository.ListingStatRepository;
@@ -32,10 +30,10 @@ import lombok.RequiredArgsConstructor;
 public class StatisticQueryServiceImpl implements StatisticQueryService {
 
     private final ListingStatRepository listingStatRepository;
-    private final UserRepository userRepository;
-    private final ListingRepository listingRepository;
-    private final ResumeRepository resumeRepository;
     private final OnlineStatRepository onlineStatRepository;
+    private final ListingStatRollup statRollup;
+    private final OnlineMetricsAggregator onlineMetricsAggregator;
+    private final SiteCounters siteCounters;
    
     public int getTotalViews(User user) {
         return user.getListings().stream()
@@ -53,13 +51,12 @@ public class StatisticQueryServiceImpl implements StatisticQueryService {
     public Map<String, Object> getSiteStats(Locale locale) {
         Map<String, Object> stats = new HashMap<>();
 
-        // Получаем реальные данные из репозиториев
-        long usersCount = userRepository.count();
-        long resumesCount = resumeRepository.countByPublishedTrue();
-        long activeListingsCount = listingRepository.findListByActiveTrue().size();
-        long totalViews = listingRepository.findAll().stream()
-                .mapToInt(Listing::getViews)
-                .sum();
+        // Счётчики поддерживаются командными сервисами и сверяются с БД в фоне
+        SiteCounters.Snapshot counters = siteCounters.get();
+        long usersCount = counters.usersCount();
+        long resumesCount = counters.resumesCount();
+        long activeListingsCount = counters.activeListingsCount();
+        long totalViews = counters.totalViews();
 
         // Форматируем числа в зависимости от локали
         NumberFormat numberFormat = NumberFormat.getInstance(locale);
@@ -93,112 +90,78 @@ public class StatisticQueryServiceImpl implements StatisticQueryService {
         return stats;
     }
 
+    // Сутки берутся из дневной свёртки, хвост после неё — из часовой, остаток после часовой — из сырых снапшотов.
+    // Первое окно берётся целиком, поэтому начало периода может сдвинуться назад меньше чем на сутки
     private int countStats(Long listingId, LocalDateTime dateStart, LocalDateTime dateEnd, String metric) {
+        LocalDateTime dailyEnd = rolledBoundary(IntervalType.DAILY, dateStart, dateEnd);
+        LocalDateTime hourlyEnd = max(dailyEnd, rolledBoundary(IntervalType.HOURLY, dailyEnd, dateEnd));
+
+        MetricRange range = merge(
+            statRollup.findRange(listingId, IntervalType.DAILY,
+                ListingStatRollup.floor(IntervalType.DAILY, dateStart), dailyEnd, metric),
+            statRollup.findRange(listingId, IntervalType.HOURLY,
+                ListingStatRollup.floor(IntervalType.HOURLY, dailyEnd), hourlyEnd, metric));
+        range = merge(range, findRawRange(listingId, hourlyEnd, dateEnd, metric));
+
+        if (range == null) {
+            return 0;
+        }
+
+        return (int) (range.max() - range.min());
+    }
+
+    // Конец последнего свёрнутого окна уровня, ограниченный [from, to]
+    private LocalDateTime rolledBoundary(IntervalType tier, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime rolled = statRollup.rolledUntil(tier);
+        if (rolled == null || !rolled.isAfter(from)) {
+            return from;
+        }
+        return rolled.isBefore(to) ? rolled : to;
+    }
+
+    private MetricRange findRawRange(Long listingId, LocalDateTime dateStart, LocalDateTime dateEnd, String metric) {
+        if (!dateStart.isBefore(dateEnd)) {
+            return null;
+        }
+
         ListingStatSnapshot statMin = listingStatRepository.findMinByMetric(listingId, dateStart, dateEnd, null, metric);
         ListingStatSnapshot statMax = listingStatRepository.findMaxByMetric(listingId, dateStart, dateEnd, null, metric);
 
         if (statMin == null || statMax == null) {
-            return 0;
+            return null;
         }
 
+        return new MetricRange(metricValue(statMin, metric), metricValue(statMax, metric));
+    }
+
+    private static double metricValue(ListingStatSnapshot snapshot, String metric) {
         switch (metric) {
             case "views":
-                return statMax.getViews() - statMin.getViews();
+                return snapshot.getViews();
             case "favorites":
-                return statMax.getFavorites() - statMin.getFavorites();
+                return snapshot.getFavorites();
             case "rating":
-                // Assuming rating is a double, you may want to return (int) or change return type
-                return (int) (statMax.getRating() - statMin.getRating());
+                return snapshot.getRating();
             default:
                 throw new IllegalArgumentException("Unknown metric: " + metric);
         }
     }
 
+    private static MetricRange merge(MetricRange a, MetricRange b) {
+        return a != null ? a.merge(b) : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
     public int getLastOnlineSnapshot() {
         OnlineStatSnapshot snapshot = onlineStatRepository.findFirstByOrderByTimestampDesc();
         return snapshot.getOnline();
     }
 
     public OnlineStatsMetricsDTO getMonthlyMetrics() {
-        List<OnlineStatSnapshot> snapshots = onlineStatRepository.findByTimestampAfter(LocalDateTime.now().minusMonths(1));
-
-        if (snapshots.isEmpty()) {
-            return new OnlineStatsMetricsDTO(); // или кинуть exception
-        }
-
-        // Достаём список значений онлайна
-        List<Integer> values = snapshots.stream()
-                .map(OnlineStatSnapshot::getOnline)
-                .sorted()
-                .toList();
-
-        IntSummaryStatistics stats = values.stream()
-                .mapToInt(Integer::intValue)
-                .summaryStatistics();
-
-        int min = stats.getMin();
-        int max = stats.getMax();
-        double avg = stats.getAverage();
-
-        // Медиана
-        double median;
-        int size = values.size();
-        if (size % 2 == 0) {
-            median = (values.get(size / 2 - 1) + values.get(size / 2)) / 2.0;
-        } else {
-            median = values.get(size / 2);
-        }
-
-        // p95
-        int p95Index = (int) Math.ceil(0.95 * size) - 1;
-        double p95 = values.get(Math.max(p95Index, 0));
-
-        // Стандартное отклонение
-        double variance = values.stream()
-                .mapToDouble(v -> Math.pow(v - avg, 2))
-                .sum() / size;
-        double stdDev = Math.sqrt(variance);
-
-        // Сумма человеко-часов (онлайн * время)
-        // один снапшот = 15 секунд
-        int totalUserSeconds = values.stream()
-                .mapToInt(Integer::intValue)
-                .sum() * 15;
-        int totalUserHours = totalUserSeconds / 3600;
-
-        Map<LocalDate, Double> avgByDay = snapshots.stream()
-                .collect(Collectors.groupingBy(
-                        snap -> snap.getTimestamp().toLocalDate(),
-                        Collectors.averagingInt(OnlineStatSnapshot::getOnline)
-                ));
-
-        LocalDate peakDay = avgByDay.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
-
-        // 2. Час пика (по среднему за час суток)
-        Map<Integer, Double> avgByHour = snapshots.stream()
-                .collect(Collectors.groupingBy(
-                        snap -> snap.getTimestamp().getHour(),
-                        Collectors.averagingInt(OnlineStatSnapshot::getOnline)
-                ));
-
-        Integer peakHour = avgByHour.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
-
-        return new OnlineStatsMetricsDTO(
-                min,
-                max,
-                avg,
-                median,
-                p95,
-                stdDev,
-                totalUserHours,
-                peakDay,
-                peakHour
-        );
+        LocalDateTime now = LocalDateTime.now();
+        return onlineMetricsAggregator.getMetrics(now.minusMonths(1), now);
     }
 }
\ No newline at end of file
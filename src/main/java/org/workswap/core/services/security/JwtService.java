@@ -15,34 +15,79 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Profile("production")
 @RequiredArgsConstructor
 public class JwtService {
 
+    private static final int MAX_CACHED_TOKENS = 50_000;
+    private static final long MAX_CACHE_TTL_MILLIS = 5 * 60 * 1000;
+
     private final RSAKey rsaKey;
 
+    // Верификатор потокобезопасен, ключ не меняется — строим один раз
+    private volatile RSASSAVerifier verifier;
+
+    // SHA-256 токена -> результат проверки; запись живёт не дольше exp токена
+    private final Map<String, CachedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    private record CachedToken(VerifiedToken token, long expiresAt) {}
+
     /**
-     * Проверяет токен, валидирует подпись и срок жизни
+     * Один разбор и одна проверка подписи на токен: результат кэшируется до exp (но не дольше 5 минут)
      * @param token строка JWT
-     * @return claims (JWTClaimsSet), если токен валиден, иначе null
+     * @return claims и права, если токен валиден, иначе null
      */
-    public JWTClaimsSet validate(String token) {
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        String key = hash(token);
+
+        CachedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return cached.token();
+            }
+            verifiedTokens.remove(key, cached);
+        }
+
+        VerifiedToken verified = verifyUncached(token);
+        if (verified != null) {
+            if (verifiedTokens.size() >= MAX_CACHED_TOKENS) {
+                verifiedTokens.values().removeIf(c -> c.expiresAt() <= now);
+                if (verifiedTokens.size() >= MAX_CACHED_TOKENS) {
+                    verifiedTokens.clear();
+                }
+            }
+            long expiresAt = Math.min(verified.getExpiresAt().getTime(), now + MAX_CACHE_TTL_MILLIS);
+            verifiedTokens.put(key, new CachedToken(verified, expiresAt));
+        }
+        return verified;
+    }
+
+    private VerifiedToken verifyUncached(String token) {
         try {
             SignedJWT signedJWT = SignedJWT.parse(token);
 
             // Проверяем подпись по публичному ключу
-            RSASSAVerifier verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
-            if (!signedJWT.verify(verifier)) {
+            if (!signedJWT.verify(verifier())) {
                 return null; // подпись не сошлась
             }
 
@@ -54,13 +99,32 @@ public class JwtService {
                 return null; // токен просрочен
             }
 
-            return claims;
+            return new VerifiedToken(claims, extractAuthorities(claims), signedJWT.getHeader().getAlgorithm().getName());
 
         } catch (ParseException | JOSEException e) {
             return null;
         }
     }
 
+    private RSASSAVerifier verifier() throws JOSEException {
+        RSASSAVerifier current = verifier;
+        if (current == null) {
+            current = new RSASSAVerifier(rsaKey.toRSAPublicKey());
+            verifier = current;
+        }
+        return current;
+    }
+
+    /**
+     * Проверяет токен, валидирует подпись и срок жизни
+     * @param token строка JWT
+     * @return claims (JWTClaimsSet), если токен валиден, иначе null
+     */
+    public JWTClaimsSet validate(String token) {
+        VerifiedToken verified = verify(token);
+        return verified != null ? verified.getClaims() : null;
+    }
+
     /**
      * Валидирует токен и возвращает список GrantedAuthority
      * @param token JWT токен
@@ -68,11 +132,11 @@ public class JwtService {
      * @throws ParseException 
      */
     public Collection<GrantedAuthority> getAuthorities(String token) throws ParseException {
-        JWTClaimsSet claims = validate(token);
-        if (claims == null) {
-            return Collections.emptyList();
-        }
+        VerifiedToken verified = verify(token);
+        return verified != null ? verified.getAuthorities() : Collections.emptyList();
+    }
 
+    private static Collection<GrantedAuthority> extractAuthorities(JWTClaimsSet claims) throws ParseException {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
 
         // роли
@@ -87,24 +151,26 @@ public class JwtService {
             perms.forEach(perm -> authorities.add(new SimpleGrantedAuthority(perm)));
         }
 
-        return authorities;
+        return Collections.unmodifiableCollection(authorities);
     }
 
-    public Jwt parseToSpringJwt(String token) throws Exception {
-        SignedJWT signedJWT = SignedJWT.parse(token);
-
-        RSASSAVerifier verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
-        if (!signedJWT.verify(verifier)) {
-            throw new SecurityException("JWT signature validation failed");
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
         }
+    }
 
-        JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
-
-        Date expiration = claims.getExpirationTime();
-        if (expiration == null || expiration.before(new Date())) {
-            throw new SecurityException("JWT is expired");
+    public Jwt parseToSpringJwt(String token) throws Exception {
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            throw new SecurityException("JWT signature validation failed or JWT is expired");
         }
 
+        JWTClaimsSet claims = verified.getClaims();
+
         // Переносим claims в Map
         Map<String, Object> claimsMap = claims.getClaims();
 
@@ -113,7 +179,7 @@ public class JwtService {
                 token,
                 claims.getIssueTime() != null ? claims.getIssueTime().toInstant() : Instant.now(),
                 claims.getExpirationTime() != null ? claims.getExpirationTime().toInstant() : Instant.now().plusSeconds(60),
-                Map.of("alg", signedJWT.getHeader().getAlgorithm().getName()),
+                Map.of("alg", verified.getAlgorithm()),
                 claimsMap
         );
     }
@@ -0,0 +1,29 @@
+package org.workswap.core.services.security;
+
+import java.util.Collection;
+import java.util.Date;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Результат одной проверки подписи и срока: claims и права вместе
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    private final JWTClaimsSet claims;
+    private final Collection<GrantedAuthority> authorities;
+    private final String algorithm;
+
+    public String getUserId() {
+        return claims.getSubject();
+    }
+
+    public Date getExpiresAt() {
+        return claims.getExpirationTime();
+    }
+}
@@ -22,6 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.workswap.common.enums.UserStatus;
 import org.workswap.common.enums.UserType;
 import org.workswap.core.services.command.UserCommandService;
+import org.workswap.core.services.components.SiteCounters;
 import org.workswap.core.services.security.AuthCookiesService;
 import org.workswap.core.services.query.PermissionQueryService;
 import org.workswap.core.services.query.UserQueryService;
@@ -49,6 +50,7 @@ public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler
     private final PermissionQueryService permissionQueryService;
 
     private final AuthCookiesService cookiesService;
+    private final SiteCounters siteCounters;
 
     @Value("${backoffice.url}")
     private String backofficeUrl;
@@ -132,6 +134,7 @@ public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler
 
         if(tempUser.getType().equals(UserType.TEMP)) {
             userRepository.deleteById(Long.valueOf(tempUserId));
+            siteCounters.userDeleted();
             return favorites;
         }
 
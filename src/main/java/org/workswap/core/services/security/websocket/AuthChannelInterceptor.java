@@ -2,7 +2,6 @@ package org.workswap.core.services.security.websocket;
 
 import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +24,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.workswap.core.services.analytic.OnlineCounter;
 import org.workswap.core.services.security.JwtService;
+import org.workswap.core.services.security.VerifiedToken;
 
 import lombok.RequiredArgsConstructor;
 
@@ -38,8 +38,7 @@ public class AuthChannelInterceptor implements ChannelInterceptor {
 
     private final JwtService jwtService;
     private final OnlineCounter onlineCounter;
-
-    private final Map<String, String> activeSessions = new ConcurrentHashMap<>();
+    private final SessionRegistry sessionRegistry;
 
     @Override
     public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
@@ -62,19 +61,20 @@ public class AuthChannelInterceptor implements ChannelInterceptor {
             }
 
             try {
-                String userId = jwtService.validateAndGetUserIdStr(token);
-                if (userId == null) {
+                // одна проверка подписи: и пользователь, и права из одного результата
+                VerifiedToken verified = jwtService.verify(token);
+                if (verified == null || verified.getUserId() == null) {
                     throw new MessagingException("Invalid or expired token");
                 }
+                String userId = verified.getUserId();
 
                 // 🔹 проверка на активную сессию
-                String existingSession = activeSessions.putIfAbsent(userId, accessor.getSessionId());
-                if (existingSession != null) {
-                    logger.warn("User {} already has an active session: {}", userId, existingSession);
+                if (!sessionRegistry.tryRegister(userId, accessor.getSessionId())) {
+                    logger.warn("User {} already has an active session: {}", userId, sessionRegistry.findSession(userId));
                     throw new MessagingException("Only one active connection is allowed");
                 }
 
-                Collection<GrantedAuthority> authorities = jwtService.getAuthorities(token);
+                Collection<GrantedAuthority> authorities = verified.getAuthorities();
 
                 Authentication authentication =
                     new UsernamePasswordAuthenticationToken(userId, null, authorities);
@@ -122,11 +122,8 @@ public class AuthChannelInterceptor implements ChannelInterceptor {
                         String userId = (String) auth.getPrincipal();
                         String sessionId = accessor.getSessionId();
 
-                        String existingSession = activeSessions.get(userId);
-                        if (existingSession != null && existingSession.equals(sessionId)) {
-                            activeSessions.remove(userId);
-                            logger.debug("Removed session {} for user {}", sessionId, userId);
-                        }
+                        sessionRegistry.unregister(userId, sessionId);
+                        logger.debug("Removed session {} for user {}", sessionId, userId);
                     }
                     break;
                     
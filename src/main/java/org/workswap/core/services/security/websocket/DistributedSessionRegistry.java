@@ -0,0 +1,186 @@
+package org.workswap.core.services.security.websocket;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.workswap.core.objects.PNCounter;
+import org.workswap.core.services.analytic.OnlineCounter;
+import org.workswap.core.services.components.ClusterNode;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Реестр сессий для нескольких узлов за балансировщиком.
+ * Каждый узел хранит свои сессии и периодически рассылает своё состояние (сессии и PN-счётчик онлайна)
+ * через fanout-обмен RabbitMQ; узлы, молчащие дольше TTL, считаются выбывшими.
+ * Проверка единственной сессии — по локальному и последнему известному чужому состоянию:
+ * одновременное подключение к двум узлам в пределах одного интервала рассылки не исключено,
+ * такой конфликт логируется.
+ */
+@Component
+@Profile("production")
+@ConditionalOnProperty(name = "websocket.session-registry", havingValue = "distributed")
+public class DistributedSessionRegistry implements SessionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedSessionRegistry.class);
+
+    public static final String EXCHANGE = "workswap.sessions";
+
+    public record NodeState(String nodeId, long epoch, Map<String, String> sessions, long onlineP, long onlineN) {}
+
+    private record RemoteSession(String nodeId, String sessionId) {}
+
+    private final AmqpTemplate amqpTemplate;
+    private final ClusterNode clusterNode;
+    private final PNCounter onlineCounter;
+    private final OnlineCounter online;
+    private final long intervalMillis;
+    private final long ttlMillis;
+
+    private final Map<String, String> localSessions = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> remoteSessionsByNode = new ConcurrentHashMap<>();
+    private final Map<String, Long> nodeSeenAt = new ConcurrentHashMap<>();
+    private volatile Map<String, RemoteSession> remoteSessions = Map.of();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "session-gossip");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DistributedSessionRegistry(
+        AmqpTemplate amqpTemplate,
+        ClusterNode clusterNode,
+        OnlineCounter onlineCounter,
+        @Value("${websocket.session-registry.gossip-interval-ms:5000}") long intervalMillis
+    ) {
+        this.amqpTemplate = amqpTemplate;
+        this.clusterNode = clusterNode;
+        this.onlineCounter = onlineCounter.getCounter();
+        this.online = onlineCounter;
+        // отчёт об онлайне — только когда состояния соседей уже получены
+        onlineCounter.awaitClusterView();
+        this.intervalMillis = intervalMillis;
+        this.ttlMillis = intervalMillis * 3;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::gossip, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean tryRegister(String userId, String sessionId) {
+        RemoteSession remote = remoteSessions.get(userId);
+        if (remote != null) {
+            return false;
+        }
+        boolean registered = localSessions.putIfAbsent(userId, sessionId) == null;
+        if (registered) {
+            publish(); // сразу, чтобы сократить окно гонки с другими узлами
+        }
+        return registered;
+    }
+
+    @Override
+    public void unregister(String userId, String sessionId) {
+        if (localSessions.remove(userId, sessionId)) {
+            publish();
+        }
+    }
+
+    @Override
+    public String findSession(String userId) {
+        String local = localSessions.get(userId);
+        if (local != null) {
+            return local;
+        }
+        RemoteSession remote = remoteSessions.get(userId);
+        return remote != null ? remote.sessionId() : null;
+    }
+
+    @RabbitListener(bindings = @QueueBinding(
+        value = @Queue(autoDelete = "true", exclusive = "true"),
+        exchange = @Exchange(name = EXCHANGE, type = "fanout")))
+    public void onNodeState(NodeState state) {
+        if (state == null || clusterNode.getId().equals(state.nodeId())) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Map<String, String> sessions = state.sessions() != null ? state.sessions() : Map.of();
+        nodeSeenAt.put(state.nodeId(), now);
+        remoteSessionsByNode.put(state.nodeId(), sessions);
+        onlineCounter.merge(state.nodeId(), state.epoch(), state.onlineP(), state.onlineN(), now);
+
+        sessions.keySet().stream()
+            .filter(localSessions::containsKey)
+            .forEach(userId -> logger.warn("Пользователь {} подключён к узлам {} и {} одновременно",
+                userId, clusterNode.getId(), state.nodeId()));
+
+        rebuildRemoteView();
+    }
+
+    private void gossip() {
+        try {
+            long threshold = System.currentTimeMillis() - ttlMillis;
+            nodeSeenAt.entrySet().removeIf(e -> {
+                boolean expired = e.getValue() < threshold;
+                if (expired) {
+                    logger.info("Узел {} не отвечает, его сессии сняты", e.getKey());
+                    remoteSessionsByNode.remove(e.getKey());
+                }
+                return expired;
+            });
+            onlineCounter.expire(threshold);
+            rebuildRemoteView();
+            publish();
+            // первый раунд идёт через интервал после старта: к нему каждый живой узел успел разослать состояние
+            online.clusterViewReady();
+        } catch (RuntimeException e) {
+            logger.warn("Ошибка обслуживания реестра сессий: {}", e.getMessage());
+        }
+    }
+
+    private void publish() {
+        try {
+            amqpTemplate.convertAndSend(EXCHANGE, "", new NodeState(
+                clusterNode.getId(),
+                onlineCounter.getEpoch(),
+                Map.copyOf(localSessions),
+                onlineCounter.getP(),
+                onlineCounter.getN()));
+        } catch (RuntimeException e) {
+            // брокер недоступен — состояние уйдёт со следующей рассылкой
+            logger.warn("Не удалось разослать состояние сессий: {}", e.getMessage());
+        }
+    }
+
+    private void rebuildRemoteView() {
+        Map<String, RemoteSession> view = new HashMap<>();
+        remoteSessionsByNode.forEach((nodeId, sessions) ->
+            sessions.forEach((userId, sessionId) -> view.put(userId, new RemoteSession(nodeId, sessionId))));
+        remoteSessions = view;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,32 @@
+package org.workswap.core.services.security.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// Сессии только этого узла — подходит для одного экземпляра приложения
+@Component
+@Profile("production")
+@ConditionalOnProperty(name = "websocket.session-registry", havingValue = "memory", matchIfMissing = true)
+public class InMemorySessionRegistry implements SessionRegistry {
+
+    private final Map<String, String> activeSessions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean tryRegister(String userId, String sessionId) {
+        return activeSessions.putIfAbsent(userId, sessionId) == null;
+    }
+
+    @Override
+    public void unregister(String userId, String sessionId) {
+        activeSessions.remove(userId, sessionId);
+    }
+
+    @Override
+    public String findSession(String userId) {
+        return activeSessions.get(userId);
+    }
+}
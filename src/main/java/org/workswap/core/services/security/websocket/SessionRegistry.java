@@ -0,0 +1,16 @@
+package org.workswap.core.services.security.websocket;
+
+/**
+ * Реестр активных STOMP-сессий: у пользователя может быть только одно соединение.
+ * Реализация выбирается свойством websocket.session-registry (memory | distributed).
+ */
+public interface SessionRegistry {
+
+    // false, если у пользователя уже есть активная сессия
+    boolean tryRegister(String userId, String sessionId);
+
+    // Снимает регистрацию, только если она принадлежит этой сессии
+    void unregister(String userId, String sessionId);
+
+    String findSession(String userId);
+}
@@ -3,6 +3,7 @@ package org.workswap.core.services.util;
 import java.util.List;
 import java.util.Locale;
 
+import org.workswap.core.objects.LocalizedText;
 import org.workswap.datasource.central.model.Listing;
 
 public interface ListingLocalizationService {
@@ -10,4 +11,8 @@ public interface ListingLocalizationService {
     List<Listing> localizeListings(List<Listing> listings, Locale locale);
 
     void localizeListing(Listing listing, Locale locale);
+
+    // без побочных эффектов, безопасно вызывать параллельно
+    LocalizedText resolve(Listing listing, Locale locale);
+    void invalidate(Long listingId);
 }
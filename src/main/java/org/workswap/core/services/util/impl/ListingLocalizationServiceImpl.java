@@ -1,5 +1,6 @@
 package org.workswap.core.services.util.impl;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -7,6 +8,8 @@ import java.util.Map;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import org.workswap.config.LocalisationConfig.LanguageUtils;
+import org.workswap.core.objects.LocalizedText;
+import org.workswap.core.services.components.LocalizedTextCache;
 import org.workswap.core.services.util.ListingLocalizationService;
 import org.workswap.datasource.central.model.Listing;
 import org.workswap.datasource.central.model.listingModels.ListingTranslation;
@@ -18,6 +21,8 @@ import lombok.RequiredArgsConstructor;
 @Profile({"production", "statistic"})
 public class ListingLocalizationServiceImpl implements ListingLocalizationService {
 
+    private final LocalizedTextCache cache = new LocalizedTextCache(100_000, Duration.ofMinutes(10));
+
     public List<Listing> localizeListings(List<Listing> listings, Locale locale) {
         for (Listing listing : listings) {
             localizeListing(listing, locale);
@@ -27,9 +32,21 @@ public class ListingLocalizationServiceImpl implements ListingLocalizationServic
     }
 
     public void localizeListing(Listing listing, Locale locale) {
+        LocalizedText text = resolve(listing, locale);
+        listing.setLocalizedTitle(text.getTitle());
+        listing.setLocalizedDescription(text.getDescription());
+    }
+
+    public LocalizedText resolve(Listing listing, Locale locale) {
         String lang = locale.getLanguage();
-        Map<String, ListingTranslation> translations = listing.getTranslations();
+        return cache.get(listing.getId(), lang, () -> selectTranslation(listing.getTranslations(), lang));
+    }
+
+    public void invalidate(Long listingId) {
+        cache.invalidate(listingId);
+    }
 
+    private LocalizedText selectTranslation(Map<String, ListingTranslation> translations, String lang) {
         ListingTranslation selected = translations.get(lang);
 
         // fallback, если нужного языка нет
@@ -43,13 +60,10 @@ public class ListingLocalizationServiceImpl implements ListingLocalizationServic
             }
         }
 
-        if (selected != null) {
-            listing.setLocalizedTitle(safe(selected.getTitle()));
-            listing.setLocalizedDescription(safe(selected.getDescription()));
-        } else {
-            listing.setLocalizedTitle(null);
-            listing.setLocalizedDescription(null);
+        if (selected == null) {
+            return LocalizedText.EMPTY;
         }
+        return new LocalizedText(safe(selected.getTitle()), null, safe(selected.getDescription()));
     }
 
     private String safe(String value) {
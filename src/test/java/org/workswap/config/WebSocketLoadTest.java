@@ -0,0 +1,217 @@
+package org.workswap.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.workswap.core.services.security.websocket.AuthChannelInterceptor;
+import org.workswap.core.services.security.websocket.AuthHandshakeInterceptor;
+
+/**
+ * Нагрузочное сравнение режимов websocket.executor: поднимается WebSocketConfig на случайном порту,
+ * N локальных STOMP-клиентов шлют сообщения в обработчик, который блокируется как запрос к БД,
+ * и ждут ответа в своём топике. Для platform и virtual печатаются пропускная способность и задержки.
+ * Запуск: mvn test -P load-test [-Dload.clients=2000 -Dload.messages=50 -Dload.blocking-ms=5 -Dload.concurrency-limit=200]
+ * По умолчанию — 2000 клиентов: на сотнях разница между режимами теряется в шуме.
+ * Для десятков тысяч поднимите лимит открытых файлов (ulimit -n) и -Dload.clients.
+ */
+@Tag("load")
+class WebSocketLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketLoadTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 2000);
+    private static final int MESSAGES = Integer.getInteger("load.messages", 50);
+    private static final long BLOCKING_MILLIS = Long.getLong("load.blocking-ms", 5);
+    private static final int CONCURRENCY_LIMIT = Integer.getInteger("load.concurrency-limit", 200);
+
+    public record Ping(int client, long sentNanos) {}
+
+    private record Result(String mode, long elapsedNanos, long received, long[] latencies) {
+
+        double throughput() {
+            return received * 1e9 / elapsedNanos;
+        }
+
+        double percentileMillis(double q) {
+            if (latencies.length == 0) {
+                return 0.0;
+            }
+            int index = Math.min((int) Math.ceil(q * latencies.length) - 1, latencies.length - 1);
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+
+    @Test
+    void virtualVsPlatformThreads() throws Exception {
+        Result platform = run("platform");
+        Result virtual = run("virtual");
+
+        for (Result result : List.of(platform, virtual)) {
+            logger.info("{}: {} сообщений, {} msg/s, p50 {} мс, p95 {} мс, p99 {} мс",
+                result.mode(), result.received(), String.format("%.0f", result.throughput()),
+                String.format("%.1f", result.percentileMillis(0.5)),
+                String.format("%.1f", result.percentileMillis(0.95)),
+                String.format("%.1f", result.percentileMillis(0.99)));
+        }
+
+        long expected = (long) CLIENTS * MESSAGES;
+        assertThat(platform.received()).isEqualTo(expected);
+        assertThat(virtual.received()).isEqualTo(expected);
+    }
+
+    private Result run(String mode) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadApp.class)
+                .profiles("production")
+                .properties(
+                    "server.port=0",
+                    "spring.main.banner-mode=off",
+                    "websocket.executor=" + mode,
+                    "websocket.virtual.concurrency-limit=" + CONCURRENCY_LIMIT,
+                    "load.blocking-ms=" + BLOCKING_MILLIS)
+                .run()) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return drive(mode, "ws://localhost:" + port + "/ws");
+        }
+    }
+
+    private Result drive(String mode, String url) throws Exception {
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+
+        long total = (long) CLIENTS * MESSAGES;
+        AtomicLongArray latencies = new AtomicLongArray((int) total);
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch((int) total);
+        List<StompSession> sessions = new ArrayList<>(CLIENTS);
+
+        try {
+            for (int i = 0; i < CLIENTS; i++) {
+                StompSession session = client.connectAsync(url, new StompSessionHandlerAdapter() {})
+                    .get(10, TimeUnit.SECONDS);
+                session.subscribe("/topic/load/" + i, new StompFrameHandler() {
+                    @Override
+                    @NonNull
+                    public Type getPayloadType(@NonNull StompHeaders headers) {
+                        return Ping.class;
+                    }
+
+                    @Override
+                    public void handleFrame(@NonNull StompHeaders headers, Object payload) {
+                        Ping ping = (Ping) payload;
+                        int index = received.getAndIncrement();
+                        if (index < latencies.length()) {
+                            latencies.set(index, System.nanoTime() - ping.sentNanos());
+                        }
+                        done.countDown();
+                    }
+                });
+                sessions.add(session);
+            }
+
+            // подписки регистрируются асинхронно — даём им дойти до брокера
+            Thread.sleep(500);
+
+            long start = System.nanoTime();
+            for (int m = 0; m < MESSAGES; m++) {
+                for (int i = 0; i < CLIENTS; i++) {
+                    sessions.get(i).send("/app/load/" + i, new Ping(i, System.nanoTime()));
+                }
+            }
+            done.await(2, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - start;
+
+            int count = Math.min(received.get(), latencies.length());
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            return new Result(mode, elapsed, received.get(), sorted);
+        } finally {
+            sessions.forEach(StompSession::disconnect);
+            client.stop();
+        }
+    }
+
+    // Только веб-сервер и конфигурация STOMP; авторизация пропускает всё
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({
+        ServletWebServerFactoryAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class,
+        WebSocketServletAutoConfiguration.class
+    })
+    @Import({WebSocketConfig.class, EchoController.class})
+    static class LoadApp {
+
+        @Bean
+        AuthChannelInterceptor authChannelInterceptor() {
+            AuthChannelInterceptor interceptor = mock(AuthChannelInterceptor.class);
+            when(interceptor.preSend(any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+            return interceptor;
+        }
+
+        @Bean
+        AuthHandshakeInterceptor authHandshakeInterceptor() throws Exception {
+            AuthHandshakeInterceptor interceptor = mock(AuthHandshakeInterceptor.class);
+            when(interceptor.beforeHandshake(any(), any(), any(), any())).thenReturn(true);
+            return interceptor;
+        }
+    }
+
+    @Controller
+    static class EchoController {
+
+        private final long blockingMillis;
+
+        EchoController(@Value("${load.blocking-ms}") long blockingMillis) {
+            this.blockingMillis = blockingMillis;
+        }
+
+        // блокировка имитирует обращение к БД в настоящих обработчиках
+        @MessageMapping("/load/{client}")
+        @SendTo("/topic/load/{client}")
+        public Ping echo(@DestinationVariable int client, Ping ping) throws InterruptedException {
+            Thread.sleep(blockingMillis);
+            return ping;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.workswap.core;
+
+import java.util.HashSet;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.workswap.common.enums.UserStatus;
+import org.workswap.common.enums.UserType;
+import org.workswap.datasource.central.model.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+// Общая оснастка тестов на CentralJpaTestConfig: транзакции, подсчёт SQL-запросов и тестовые пользователи
+public abstract class CentralJpaTest {
+
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext(unitName = "central")
+    protected EntityManager entityManager;
+
+    // Число подготовленных запросов, выполненных за время action
+    protected long countStatements(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    protected <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    // Вызывается внутри транзакции
+    protected User newUser() {
+        User user = new User(UserStatus.TEMP, UserType.TEMP, new HashSet<>());
+        entityManager.persist(user);
+        return user;
+    }
+}
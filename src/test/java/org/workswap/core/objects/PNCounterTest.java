@@ -0,0 +1,83 @@
+package org.workswap.core.objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Слияние состояний узлов PN-счётчика: максимум в пределах эпохи, замена при перезапуске,
+ * вычёркивание молчащих узлов и выбор единственного отчитывающегося узла.
+ */
+class PNCounterTest {
+
+    @Test
+    void sameEpochMergesByMaximum() {
+        PNCounter counter = new PNCounter("a", 1);
+
+        counter.merge("b", 10, 5, 2, 100);
+        counter.merge("b", 10, 3, 4, 200); // запоздавшее и свежее вперемешку
+
+        assertThat(counter.value()).isEqualTo(5 - 4);
+    }
+
+    @Test
+    void newerEpochReplacesState() {
+        PNCounter counter = new PNCounter("a", 1);
+
+        counter.merge("b", 10, 50, 10, 100);
+        counter.merge("b", 20, 3, 1, 200); // узел b перезапустился и считает с нуля
+
+        assertThat(counter.value()).isEqualTo(2);
+    }
+
+    @Test
+    void olderEpochIsIgnoredButKeepsNodeAlive() {
+        PNCounter counter = new PNCounter("a", 1);
+
+        counter.merge("b", 20, 3, 1, 100);
+        counter.merge("b", 10, 50, 10, 300);
+
+        assertThat(counter.value()).isEqualTo(2);
+        counter.expire(200);
+        assertThat(counter.value()).isEqualTo(2);
+    }
+
+    @Test
+    void ownStateIsNotOverwrittenByGossip() {
+        PNCounter counter = new PNCounter("a", 1);
+        counter.increment();
+        counter.increment();
+        counter.decrement();
+
+        counter.merge("a", 1, 100, 0, 100);
+
+        assertThat(counter.localValue()).isEqualTo(1);
+        assertThat(counter.value()).isEqualTo(1);
+    }
+
+    @Test
+    void expireDropsSilentNodesOnly() {
+        PNCounter counter = new PNCounter("a", 1);
+        counter.increment();
+        counter.merge("b", 10, 4, 0, 100);
+        counter.merge("c", 10, 7, 0, 300);
+
+        counter.expire(200);
+
+        assertThat(counter.value()).isEqualTo(1 + 7);
+        assertThat(counter.localValue()).isEqualTo(1);
+    }
+
+    @Test
+    void lowestNodeFollowsKnownNodes() {
+        PNCounter b = new PNCounter("b", 1);
+        assertThat(b.isLowestNode()).isTrue();
+
+        b.merge("a", 10, 0, 0, 100);
+        assertThat(b.isLowestNode()).isFalse();
+
+        b.merge("c", 10, 0, 0, 300);
+        b.expire(200); // узел a выбыл
+        assertThat(b.isLowestNode()).isTrue();
+    }
+}
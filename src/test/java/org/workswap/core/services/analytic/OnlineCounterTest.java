@@ -0,0 +1,44 @@
+package org.workswap.core.services.analytic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.workswap.core.services.components.ClusterNode;
+
+/**
+ * Узел кластера не отчитывается об онлайне, пока не получил состояния соседей:
+ * до этого он единственный известный себе узел и считал бы себя наименьшим.
+ */
+class OnlineCounterTest {
+
+    @Test
+    void singleNodeReportsImmediately() {
+        OnlineCounter counter = new OnlineCounter(new ClusterNode("b"));
+
+        assertThat(counter.isReportingNode()).isTrue();
+    }
+
+    @Test
+    void clusterNodeReportsOnlyAfterClusterView() {
+        OnlineCounter counter = new OnlineCounter(new ClusterNode("b"));
+        counter.awaitClusterView();
+
+        assertThat(counter.isReportingNode()).isFalse();
+
+        counter.getCounter().merge("a", 10, 0, 0, System.currentTimeMillis());
+        counter.clusterViewReady();
+
+        assertThat(counter.isReportingNode()).isFalse(); // наименьший — узел a
+    }
+
+    @Test
+    void lowestNodeReportsAfterClusterView() {
+        OnlineCounter counter = new OnlineCounter(new ClusterNode("a"));
+        counter.awaitClusterView();
+        counter.getCounter().merge("b", 10, 0, 0, System.currentTimeMillis());
+
+        counter.clusterViewReady();
+
+        assertThat(counter.isReportingNode()).isTrue();
+    }
+}
@@ -0,0 +1,109 @@
+package org.workswap.core.services.components;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.workswap.core.CentralJpaTest;
+import org.workswap.core.CentralJpaTestConfig;
+import org.workswap.core.services.components.ChatInboxQuery.InboxRow;
+import org.workswap.datasource.central.model.User;
+import org.workswap.datasource.central.model.chat.Chat;
+import org.workswap.datasource.central.model.chat.Message;
+
+/**
+ * Список чатов вместе с собеседником читается одним запросом при любом числе чатов,
+ * тогда как прежний путь через сущности добирал последнее сообщение и собеседника по каждому чату.
+ */
+@SpringJUnitConfig({CentralJpaTestConfig.class, ChatInboxQueryTest.Config.class})
+class ChatInboxQueryTest extends CentralJpaTest {
+
+    @Autowired
+    private ChatInboxQuery inboxQuery;
+
+    @Test
+    void singleStatementRegardlessOfChatCount() {
+        Long small = createInbox(3).getId();
+        Long large = createInbox(50).getId();
+
+        assertThat(countStatements(() -> inboxQuery.findInbox(small))).isEqualTo(1);
+        assertThat(countStatements(() -> inboxQuery.findInbox(large))).isEqualTo(1);
+    }
+
+    @Test
+    void entityPathGrowsWithChatCount() {
+        Long small = createInbox(3).getId();
+        Long large = createInbox(50).getId();
+
+        long smallLegacy = countLegacyStatements(small);
+        long largeLegacy = countLegacyStatements(large);
+
+        assertThat(largeLegacy).isGreaterThan(smallLegacy);
+        assertThat(largeLegacy).isGreaterThan(countStatements(() -> inboxQuery.findInbox(large)));
+    }
+
+    @Test
+    void returnsInterlocutorAndNewestMessageOncePerChat() {
+        User owner = createInbox(10);
+
+        List<InboxRow> inbox = inboxQuery.findInbox(owner.getId());
+
+        assertThat(inbox).hasSize(10);
+        assertThat(inbox).extracting(InboxRow::chatId).doesNotHaveDuplicates();
+        assertThat(inbox).allSatisfy(row -> {
+            assertThat(row.interlocutorId()).isNotNull().isNotEqualTo(owner.getId());
+            assertThat(row.lastMessageText()).endsWith("— ответ");
+        });
+    }
+
+    // Прежняя сборка списка: чаты пользователя сущностями, последнее сообщение и собеседник — у каждого чата
+    private long countLegacyStatements(Long userId) {
+        return inTransaction(() -> {
+            User user = entityManager.find(User.class, userId);
+
+            return countStatements(() -> {
+                List<Chat> chats = entityManager.createQuery(
+                        "SELECT p.chat FROM ChatParticipant p WHERE p.user.id = :userId", Chat.class)
+                    .setParameter("userId", userId)
+                    .getResultList();
+                chats.forEach(chat -> {
+                    chat.getLastMessage();
+                    chat.getInterlocutor(user);
+                });
+            });
+        });
+    }
+
+    // Пользователь с chats чатами, в каждом по два сообщения от разных собеседников; ответ — последнее
+    private User createInbox(int chats) {
+        return inTransaction(() -> {
+            User owner = newUser();
+            for (int i = 0; i < chats; i++) {
+                User interlocutor = newUser();
+                Set<User> participants = new HashSet<>(List.of(owner, interlocutor));
+                Chat chat = new Chat(participants, null);
+                entityManager.persist(chat);
+
+                entityManager.persist(new Message(chat, owner, interlocutor, "Сообщение " + i));
+                entityManager.persist(new Message(chat, interlocutor, owner, "Сообщение " + i + " — ответ"));
+            }
+            return owner;
+        });
+    }
+
+    @Configuration
+    static class Config {
+
+        @Bean
+        ChatInboxQuery chatInboxQuery() {
+            return new ChatInboxQuery();
+        }
+    }
+}
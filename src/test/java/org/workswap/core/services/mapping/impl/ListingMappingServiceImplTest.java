@@ -0,0 +1,115 @@
+package org.workswap.core.services.mapping.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.workswap.common.dto.listing.ListingDTO;
+import org.workswap.core.CentralJpaTest;
+import org.workswap.core.CentralJpaTestConfig;
+import org.workswap.core.services.util.impl.ListingLocalizationServiceImpl;
+import org.workswap.datasource.central.model.Listing;
+import org.workswap.datasource.central.model.User;
+import org.workswap.datasource.central.model.listingModels.Category;
+import org.workswap.datasource.central.model.listingModels.ListingTranslation;
+
+/**
+ * Число SQL-запросов convertToDTOs не должно зависеть от размера пачки:
+ * категории и переводы подгружаются пакетно, а не по одному на объявление.
+ */
+@SpringJUnitConfig({CentralJpaTestConfig.class, ListingMappingServiceImplTest.Config.class})
+class ListingMappingServiceImplTest extends CentralJpaTest {
+
+    @Autowired
+    private ListingMappingServiceImpl mappingService;
+
+    @Test
+    void statementCountDoesNotGrowWithListings() {
+        long small = countMappingStatements(createListings(5));
+        long large = countMappingStatements(createListings(40));
+
+        assertThat(large).isEqualTo(small);
+        assertThat(large).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void keepsInputOrderAndResolvesTranslations() {
+        List<Long> ids = new ArrayList<>(createListings(10));
+        Collections.reverse(ids);
+
+        List<ListingDTO> dtos = inTransaction(() -> {
+            List<Listing> listings = load(ids);
+            entityManager.clear();
+            return mappingService.convertToDTOs(listings, Locale.of("ru"));
+        });
+
+        assertThat(dtos).extracting(ListingDTO::getId).containsExactlyElementsOf(ids);
+        assertThat(dtos).allSatisfy(dto -> assertThat(dto.getTitle()).startsWith("Заголовок"));
+    }
+
+    // Объявления загружаются заранее, как их отдаёт вызывающий код; считаются только запросы маппинга
+    private long countMappingStatements(List<Long> ids) {
+        return inTransaction(() -> {
+            List<Listing> listings = load(ids);
+            entityManager.clear();
+
+            return countStatements(() ->
+                assertThat(mappingService.convertToDTOs(listings, Locale.of("ru"))).hasSize(ids.size()));
+        });
+    }
+
+    private List<Long> createListings(int count) {
+        return inTransaction(() -> {
+            User author = newUser();
+
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                // своя категория у каждого объявления — ленивая загрузка проявилась бы запросом на объявление
+                Category category = new Category("Категория " + i, null);
+                entityManager.persist(category);
+
+                Listing listing = new Listing();
+                listing.setAuthor(author);
+                listing.setCategory(category);
+                listing.setActive(true);
+                entityManager.persist(listing);
+
+                for (String lang : List.of("ru", "en")) {
+                    ListingTranslation translation = new ListingTranslation(lang, "Заголовок " + i, "Описание " + i, listing);
+                    entityManager.persist(translation);
+                    listing.getTranslations().put(lang, translation);
+                }
+                ids.add(listing.getId());
+            }
+            return ids;
+        });
+    }
+
+    private List<Listing> load(List<Long> ids) {
+        Map<Long, Listing> byId = new HashMap<>();
+        entityManager.createQuery("SELECT l FROM Listing l WHERE l.id IN :ids", Listing.class)
+            .setParameter("ids", ids)
+            .getResultList()
+            .forEach(l -> byId.put(l.getId(), l));
+        return ids.stream().map(byId::get).toList();
+    }
+
+    @Configuration
+    static class Config {
+
+        @Bean
+        ListingMappingServiceImpl listingMappingService() {
+            return new ListingMappingServiceImpl(new ListingLocalizationServiceImpl());
+        }
+    }
+}